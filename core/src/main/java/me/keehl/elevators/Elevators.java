@@ -1,6 +1,7 @@
 package me.keehl.elevators;
 
 import me.keehl.elevators.services.*;
+import me.keehl.elevators.models.ElevatorType;
 import com.tcoded.folialib.FoliaLib;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
@@ -10,6 +11,7 @@ import org.bukkit.plugin.java.JavaPlugin;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.logging.Logger;
 
@@ -29,15 +31,21 @@ public class Elevators {
         ElevatorDataContainerService.init();
         ElevatorSettingService.init();
         ElevatorVersionService.init();
+        ElevatorMigrationService.init();
         ElevatorEffectService.init();
         ElevatorActionService.init();
         ElevatorTypeService.init();
         ElevatorRecipeService.init();
         ElevatorObstructionService.init();
+        ElevatorIndexService.init();
+        ElevatorSearchCacheService.init();
+        ElevatorHopperCacheService.init();
+        ElevatorPrefetchService.init();
         ElevatorListenerService.init();
         ElevatorHookService.init();
         ElevatorHologramService.init();
         ElevatorCommandService.init();
+        ElevatorConfigWatchService.init();
         ElevatorUpdateService.init(plugin.getDescription().getVersion());
 
         Elevators.popLog(logData -> Elevators.log("Services enabled. " + ChatColor.YELLOW + "Took " + logData.getElapsedTime() + "ms"));
@@ -51,22 +59,42 @@ public class Elevators {
         Elevators.log("Disabling services");
         Elevators.pushLog();
 
+        ElevatorConfigWatchService.unInitialize();
         ElevatorHookService.unInitialize();
         ElevatorListenerService.unInitialize();
         ElevatorHologramService.onDisable();
         ElevatorUpdateService.unInitialize();
+        ElevatorMigrationService.unInitialize();
 
-        saveConfig();
+        int migratedBlocks = ElevatorVersionService.getMigratedBlockCount();
+        if (migratedBlocks > 0)
+            Elevators.log("Migrated " + migratedBlocks + " elevator block" + (migratedBlocks == 1 ? "" : "s") + " this session.");
+
+        if (ElevatorSearchCacheService.getHits() + ElevatorSearchCacheService.getMisses() > 0)
+            Elevators.log("Search cache: " + ElevatorSearchCacheService.getHits() + " hits, " + ElevatorSearchCacheService.getMisses() + " misses this session.");
+
+        ElevatorConfigService.flushConfig();
         initialized = false;
 
         Elevators.popLog();
     }
 
+    /**
+     * Schedules a save of the config. Use {@link ElevatorConfigService#flushConfig()} to write it right away.
+     */
     public static void saveConfig() {
         File configFile = new File(instance.getDataFolder(), "config.yml");
         ElevatorConfigService.saveConfig(configFile);
     }
 
+    /**
+     * Schedules a save of a single elevator type. Cheaper than {@link #saveConfig()} when types are saved to their own files.
+     */
+    public static void saveConfig(ElevatorType elevatorType) {
+        File configFile = new File(instance.getDataFolder(), "config.yml");
+        ElevatorConfigService.saveElevatorType(configFile, elevatorType);
+    }
+
     public static void reloadElevators() {
         boolean alreadyLoadedBefore = ElevatorConfigService.isConfigLoaded();
 
@@ -75,12 +103,30 @@ public class Elevators {
         File configFile = new File(instance.getDataFolder(), "config.yml");
         instance.saveDefaultConfig();
 
+        ElevatorConfigService.flushConfig(); // Changes not yet written would otherwise be lost by the reload.
         ElevatorConfigService.loadConfig(configFile);
-        saveConfig();
 
         Elevators.popLog(logData -> Elevators.log("Elevators " + (alreadyLoadedBefore ? "re" : "") + "loaded. " + ChatColor.YELLOW + "Took " + logData.getElapsedTime() + "ms"));
     }
 
+    /**
+     * Reloads the config without blocking the main thread on reading and parsing it.
+     *
+     * @return a future completed on the main thread with whether the new config was applied.
+     */
+    public static CompletableFuture<Boolean> reloadElevatorsAsync() {
+        long startTime = System.currentTimeMillis();
+
+        File configFile = new File(instance.getDataFolder(), "config.yml");
+        instance.saveDefaultConfig();
+
+        return ElevatorConfigService.reloadConfigAsync(configFile).thenApply(applied -> {
+            if (applied)
+                Elevators.log("Elevators reloaded. " + ChatColor.YELLOW + "Took " + (System.currentTimeMillis() - startTime) + "ms");
+            return applied;
+        });
+    }
+
     public static JavaPlugin getInstance() { // I consider it bad practice to rely on a static instance, so I am prioritizing using getPlugin.
         Plugin plugin = Bukkit.getPluginManager().getPlugin("Elevators");
         if (plugin != null)
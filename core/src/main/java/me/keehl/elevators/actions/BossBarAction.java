@@ -3,11 +3,11 @@ package me.keehl.elevators.actions;
 import me.keehl.elevators.Elevators;
 import me.keehl.elevators.actions.settings.ElevatorActionSetting;
 import me.keehl.elevators.helpers.ColorHelper;
-import me.keehl.elevators.helpers.ElevatorHelper;
 import me.keehl.elevators.helpers.ItemStackHelper;
 import me.keehl.elevators.helpers.MessageHelper;
 import me.keehl.elevators.models.*;
 import me.keehl.elevators.services.ElevatorConfigService;
+import me.keehl.elevators.services.ElevatorIndexService;
 import me.keehl.elevators.services.interaction.SimpleDisplay;
 import me.keehl.elevators.services.interaction.SimpleInput;
 import org.bukkit.Bukkit;
@@ -65,8 +65,9 @@ public class BossBarAction extends ElevatorAction {
         value = MessageHelper.formatPlaceholders(player, value);
         value = MessageHelper.formatLineColors(value);
 
-        int floorCount = ElevatorHelper.getFloorNumberOrCount(eventData.getDestination(), false);
-        int currentFloor = ElevatorHelper.getFloorNumberOrCount(eventData.getDestination(), true);
+        ElevatorShaft shaft = ElevatorIndexService.getElevatorShaft(eventData.getDestination());
+        int floorCount = shaft.getFloorCount();
+        int currentFloor = shaft.getFloorNumber(eventData.getDestination().getLocation().getBlockY());
 
         double progress = (1.0F / (floorCount - 1)) * (currentFloor - 1);
 
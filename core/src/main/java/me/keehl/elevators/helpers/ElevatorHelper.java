@@ -4,9 +4,10 @@ import me.keehl.elevators.Elevators;
 import me.keehl.elevators.events.ElevatorUseEvent;
 import me.keehl.elevators.models.*;
 import me.keehl.elevators.services.*;
-import me.keehl.elevators.util.InternalElevatorSettingType;
 import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
 import org.bukkit.Location;
+import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
@@ -20,7 +21,12 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.metadata.FixedMetadataValue;
 import org.bukkit.metadata.MetadataValue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
 
 public class ElevatorHelper {
 
@@ -70,93 +76,346 @@ public class ElevatorHelper {
     }
 
     public static int getFloorNumberOrCount(Elevator elevator, boolean stopAtProvidedBox) {
-        Location startingLocation = elevator.getLocation();
-        ElevatorEventData searchResult;
-
-        // Iterate downwards to find the lowest floor
-        while (true) {
-            searchResult = findDestinationElevator(null, startingLocation, elevator, (byte) -1, false, false, true);
-            if (searchResult == null) break;
+        ElevatorShaft shaft = ElevatorIndexService.getElevatorShaft(elevator);
+        if (stopAtProvidedBox)
+            return shaft.getFloorNumber(elevator.getLocation().getBlockY());
+        return shaft.getFloorCount();
+    }
 
-            startingLocation = searchResult.getDestination().getLocation();
-        }
+    /**
+     * @return a key shared by every elevator that searches for floors the same way as this one. Elevators in the same
+     * column with the same key can reach each other, so they belong to the same shaft.
+     */
+    public static String getShaftKey(Elevator elevator) {
+        ElevatorSearchProfile profile = getSearchProfile(elevator);
+        return elevator.getElevatorType().getTypeKey() + ":" + profile.shouldCheckType() + ":" + (profile.shouldCheckColor() ? elevator.getDyeColor() : "*");
+    }
 
-        if ((elevator.getLocation().getBlockY() == startingLocation.getBlockY()) && stopAtProvidedBox)
-            return 1;
+    /**
+     * Finds every floor reachable from the provided elevator with a single walk down and a single walk up from it.
+     * Floors are found with the settings of the provided elevator, the same way the floor placeholders always have.
+     */
+    public static ElevatorShaft buildElevatorShaft(Elevator elevator, String shaftKey, int generation) {
+        List<Elevator> floors = new ArrayList<>();
 
-        // Start upwards iteration
-        int floor = 1;
-        while (true) {
-            searchResult = findDestinationElevator(null, startingLocation, elevator, (byte) 1, false, false, true);
-            if (searchResult == null) break;
-            floor++;
+        Location location = elevator.getLocation();
+        ElevatorEventData searchResult;
+        while ((searchResult = findDestinationElevator(null, location, elevator, (byte) -1, false, false, true)) != null) {
+            floors.add(searchResult.getDestination());
+            location = searchResult.getDestination().getLocation();
+        }
+        Collections.reverse(floors);
+        floors.add(elevator);
 
-            startingLocation = searchResult.getDestination().getLocation();
-            if (stopAtProvidedBox && startingLocation.getY() == elevator.getLocation().getBlockY())
-                break;
+        location = elevator.getLocation();
+        while ((searchResult = findDestinationElevator(null, location, elevator, (byte) 1, false, false, true)) != null) {
+            floors.add(searchResult.getDestination());
+            location = searchResult.getDestination().getLocation();
         }
 
-        return floor;
+        return new ElevatorShaft(shaftKey, generation, floors);
     }
 
     public static ElevatorEventData findDestinationElevator(Player player, Elevator elevator, byte direction) {
-        return findDestinationElevator(player, elevator.getLocation(), elevator, direction, false, false, false);
+        if (player == null)
+            return findDestinationElevator(null, elevator.getLocation(), elevator, direction, false, false, false);
+
+        ElevatorSearchCacheService.CachedSearch cachedSearch = ElevatorSearchCacheService.getCachedSearch(player, elevator, direction);
+        if (cachedSearch != null)
+            return cachedSearch.getResult();
+
+        return findAndCacheDestinationElevator(player, elevator, direction);
+    }
+
+    private static ElevatorEventData findAndCacheDestinationElevator(Player player, Elevator elevator, byte direction) {
+        long revision = ElevatorSearchCacheService.isEnabled() ? ElevatorSearchCacheService.getColumnRevision(elevator) : 0;
+        ElevatorEventData result = findDestinationElevator(player, elevator.getLocation(), elevator, direction, false, false, false);
+        ElevatorSearchCacheService.cacheSearch(player, elevator, direction, revision, result);
+        return result;
     }
 
     public static ElevatorEventData findDestinationElevator(Player player, Location origin, Elevator elevator, byte direction, boolean ignoreSolidBlockCheck, boolean ignoreDistanceCheck, boolean ignoreObstructionCheck) {
+        ElevatorEventData result = searchIndexedColumn(player, origin, elevator, direction, ignoreSolidBlockCheck, ignoreDistanceCheck, ignoreObstructionCheck);
+
+        // Elevators set without a block place event, such as through WorldEdit, are only known once the column is
+        // indexed again. Candidates that were turned down are already known, so the column is only scanned when the
+        // index had nothing at all in the direction of travel.
+        if (result == null && !hasIndexedLevel(origin, elevator, direction, ignoreDistanceCheck) && ElevatorIndexService.reindexColumn(origin.getWorld(), origin.getBlockX(), origin.getBlockZ()))
+            result = searchIndexedColumn(player, origin, elevator, direction, ignoreSolidBlockCheck, ignoreDistanceCheck, ignoreObstructionCheck);
+        return result;
+    }
+
+    private static ElevatorEventData searchIndexedColumn(Player player, Location origin, Elevator elevator, byte direction, boolean ignoreSolidBlockCheck, boolean ignoreDistanceCheck, boolean ignoreObstructionCheck) {
         direction = (byte) (direction > 0 ? 1 : -1);
         if (direction == -1 && origin.getBlockY() == VersionHelper.getWorldMinHeight(origin.getWorld()))
             return null;
 
         World world = origin.getWorld();
+        ElevatorSearchProfile profile = getSearchProfile(elevator);
+        int endPointY = getSearchEndPoint(world, origin.getBlockY(), profile, direction, ignoreDistanceCheck);
+
+        boolean stopsObstruction = profile.shouldStopObstruction();
+        boolean checkColor = profile.shouldCheckColor();
+        boolean checksClass = profile.shouldCheckType();
+        int maxSolidBlocks = profile.getMaxSolidBlocks();
+
+        boolean checkSolidBlocks = maxSolidBlocks != -1 && !ignoreSolidBlockCheck;
+
+        int x = origin.getBlockX();
+        int z = origin.getBlockZ();
+        int[] elevatorLevels = ElevatorIndexService.getElevatorLevels(world, x, z);
+        int index = getFirstCandidateIndex(elevatorLevels, origin.getBlockY(), direction);
+
+        // Long searches read the column out of a snapshot once, rather than fetching every block between candidates.
+        ElevatorColumn column = null;
+        if (checkSolidBlocks && Math.abs(endPointY - origin.getBlockY()) > ElevatorColumn.SNAPSHOT_THRESHOLD) {
+            ChunkSnapshot snapshot = world.getChunkAt(x >> 4, z >> 4).getChunkSnapshot(false, false, false);
+            int columnMaxY = Math.min(Math.max(origin.getBlockY(), endPointY), world.getMaxHeight() - 1);
+            column = ElevatorColumn.fromSnapshot(snapshot, x, z, Math.min(origin.getBlockY(), endPointY), columnMaxY);
+        }
 
-        int worldMinHeight = VersionHelper.getWorldMinHeight(world);
-        int maxDistance = ElevatorSettingService.getElevatorSettingValue(elevator, InternalElevatorSettingType.MAX_DISTANCE);
-        if (maxDistance == -1 || ignoreDistanceCheck)
-            maxDistance = Short.MAX_VALUE;
-
-        int endPointY = Math.min(Math.max(origin.getBlockY() + (maxDistance * direction), worldMinHeight), world.getMaxHeight());
-
-        boolean stopsObstruction = ElevatorSettingService.getElevatorSettingValue(elevator, InternalElevatorSettingType.STOP_OBSTRUCTION);
-        boolean checkColor = ElevatorSettingService.getElevatorSettingValue(elevator, InternalElevatorSettingType.CHECK_COLOR);
-        boolean checksClass = ElevatorSettingService.getElevatorSettingValue(elevator, InternalElevatorSettingType.CLASS_CHECK);
-        int maxSolidBlocks = ElevatorSettingService.getElevatorSettingValue(elevator, InternalElevatorSettingType.MAX_SOLID_BLOCKS);
-
-        int solidBlocks = maxSolidBlocks == -1 || ignoreSolidBlockCheck ? Short.MIN_VALUE : 0;
-        Location tempLocation = origin.clone();
-        do {
-            tempLocation = tempLocation.add(0, direction, 0);
-            Block tempBlock = tempLocation.getBlock();
+        int solidBlocks = 0;
+        int lastY = origin.getBlockY();
+        for (; index >= 0 && index < elevatorLevels.length; index += direction) {
+            int tempY = elevatorLevels[index];
+            if ((tempY - endPointY) * direction > 0)
+                break;
 
-            if (tempBlock.getType().isSolid())
-                solidBlocks++;
+            // Only the blocks between candidates need to be read, and only if the solid block limit is in use.
+            if (column != null)
+                solidBlocks += column.countSolidBlocks(lastY, tempY);
+            else if (checkSolidBlocks)
+                solidBlocks += countSolidBlocks(world, x, z, lastY, tempY, direction);
+            lastY = tempY;
+
+            if (column != null && !column.isShulkerBox(tempY)) {
+                ElevatorIndexService.removeElevator(world.getBlockAt(x, tempY, z));
+                if (column.isSolid(tempY))
+                    solidBlocks++;
+                continue;
+            }
 
+            Block tempBlock = world.getBlockAt(x, tempY, z);
             ShulkerBox tempShulkerBox = ShulkerBoxHelper.getShulkerBox(tempBlock);
-            if (tempShulkerBox == null)
+            ElevatorType tempElevatorType = tempShulkerBox != null ? ElevatorHelper.getElevatorType(tempShulkerBox, false) : null;
+            if (tempElevatorType == null) {
+                ElevatorIndexService.removeElevator(tempBlock);
+                if (ElevatorColumn.isSolid(tempBlock.getType()))
+                    solidBlocks++;
                 continue;
+            }
 
-            ElevatorType tempElevatorType = ElevatorHelper.getElevatorType(tempShulkerBox, false);
-            Elevator tempElevator = new Elevator(tempShulkerBox, tempElevatorType);
-            if (tempElevatorType == null || (checksClass && !elevator.getElevatorType().equals(tempElevatorType)))
+            if (checksClass && !elevator.getElevatorType().equals(tempElevatorType)) {
+                solidBlocks++;
                 continue;
+            }
 
-            if (--solidBlocks >= maxSolidBlocks)
+            if (checkSolidBlocks && solidBlocks >= maxSolidBlocks)
                 return null;
 
             if (tempShulkerBox.getColor() != elevator.getDyeColor() && checkColor)
                 continue;
 
+            Elevator tempElevator = new Elevator(tempShulkerBox, tempElevatorType);
             if (!stopsObstruction || ignoreObstructionCheck)
                 return new ElevatorEventData(elevator, tempElevator, direction, 0.0D);
 
             double addition = player != null ? ElevatorObstructionService.getHitBoxAddition(tempBlock.getRelative(BlockFace.UP), player) : 0.0;
             if (addition >= 0)
                 return new ElevatorEventData(elevator, tempElevator, direction, Math.abs(addition));
-        } while (tempLocation.getBlockY() != endPointY);
+        }
 
         return null;
     }
 
+    /**
+     * Searches for the destination elevator without holding up the thread the elevator is on. The column is read
+     * from a chunk snapshot off thread, and the candidates found that way are validated on the player's scheduler,
+     * which is also where the returned future completes. The snapshot itself is taken on the calling thread. Searches
+     * too short to be worth a snapshot run in place, and searches already prefetched for the player are handed back as
+     * they are.
+     * @return a future completing with the destination, or null if there is none.
+     */
+    public static CompletableFuture<ElevatorEventData> findDestinationAsync(Player player, Elevator elevator, byte direction) {
+        CompletableFuture<ElevatorEventData> prefetched = ElevatorPrefetchService.getPrefetchedDestination(player, elevator, direction);
+        if (prefetched != null)
+            return prefetched;
+
+        ElevatorSearchCacheService.CachedSearch cachedSearch = ElevatorSearchCacheService.getCachedSearch(player, elevator, direction);
+        if (cachedSearch != null)
+            return CompletableFuture.completedFuture(cachedSearch.getResult());
+
+        byte searchDirection = (byte) (direction > 0 ? 1 : -1);
+        Location origin = elevator.getLocation();
+        World world = origin.getWorld();
+        int originY = origin.getBlockY();
+
+        ElevatorSearchProfile profile = getSearchProfile(elevator);
+        int endPointY = getSearchEndPoint(world, originY, profile, searchDirection, false);
+
+        // Without the solid block check, the search only ever touches indexed candidates and is cheap to run in place.
+        if (profile.getMaxSolidBlocks() == -1 || Math.abs(endPointY - originY) <= ElevatorColumn.SNAPSHOT_THRESHOLD)
+            return CompletableFuture.completedFuture(findAndCacheDestinationElevator(player, elevator, searchDirection));
+
+        int x = origin.getBlockX();
+        int z = origin.getBlockZ();
+        int[] elevatorLevels = ElevatorIndexService.getElevatorLevels(world, x, z);
+        // Bukkit can only snapshot whole chunks, so every section of the chunk is copied here on the calling thread.
+        // Without the height map and biomes this is a copy of the block palettes, which is still far cheaper than
+        // reading each block of a long column in place.
+        ChunkSnapshot snapshot = world.getChunkAt(x >> 4, z >> 4).getChunkSnapshot(false, false, false);
+        Material originType = elevator.getShulkerBox().getType();
+        long revision = ElevatorSearchCacheService.isEnabled() ? ElevatorSearchCacheService.getColumnRevision(elevator) : 0;
+
+        CompletableFuture<ElevatorEventData> result = new CompletableFuture<>();
+        Elevators.getFoliaLib().getScheduler().runAsync(asyncTask -> {
+            try {
+                int columnMaxY = Math.min(Math.max(originY, endPointY), world.getMaxHeight() - 1);
+                ElevatorColumn column = ElevatorColumn.fromSnapshot(snapshot, x, z, Math.min(originY, endPointY), columnMaxY);
+
+                // Candidates are kept with the number of solid blocks passed before reaching them.
+                int[] candidates = new int[elevatorLevels.length];
+                int[] solidBlocksBefore = new int[elevatorLevels.length];
+                int candidateCount = 0;
+
+                int solidBlocks = 0;
+                int lastY = originY;
+                for (int index = getFirstCandidateIndex(elevatorLevels, originY, searchDirection); index >= 0 && index < elevatorLevels.length; index += searchDirection) {
+                    int tempY = elevatorLevels[index];
+                    if ((tempY - endPointY) * searchDirection > 0)
+                        break;
+
+                    solidBlocks += column.countSolidBlocks(lastY, tempY);
+                    lastY = tempY;
+                    if (solidBlocks >= profile.getMaxSolidBlocks())
+                        break;
+
+                    Material tempType = column.getShulkerBoxType(tempY);
+                    if (tempType == null) {
+                        if (column.isSolid(tempY))
+                            solidBlocks++;
+                        continue;
+                    }
+
+                    // Boxes of another color can only be skipped here if they will not need to be counted as solid.
+                    if (profile.shouldCheckColor() && !profile.shouldCheckType() && tempType != originType)
+                        continue;
+
+                    candidates[candidateCount] = tempY;
+                    solidBlocksBefore[candidateCount] = solidBlocks;
+                    candidateCount++;
+                }
+
+                int finalCandidateCount = candidateCount;
+                boolean hasIndexedLevels = hasIndexedLevel(elevatorLevels, originY, endPointY, searchDirection);
+                Elevators.getFoliaLib().getScheduler().runAtEntity(player, task -> {
+                    try {
+                        ElevatorEventData destination = validateCandidates(player, elevator, profile, searchDirection, candidates, solidBlocksBefore, finalCandidateCount);
+                        if (destination == null && !hasIndexedLevels && player.isOnline() && elevator.isValid() && ElevatorIndexService.reindexColumn(world, x, z))
+                            destination = searchIndexedColumn(player, origin, elevator, searchDirection, false, false, false);
+                        ElevatorSearchCacheService.cacheSearch(player, elevator, searchDirection, revision, destination);
+                        result.complete(destination);
+                    } catch (Exception e) {
+                        Elevators.getElevatorsLogger().log(Level.WARNING, "Failed to finish an elevator search. Please create an issue ticket on my GitHub if one doesn't already exist: https://github.com/keehl254/Elevators/issues. Issue:\n" + ResourceHelper.cleanTrace(e));
+                        result.complete(null);
+                    }
+                }).thenAccept(taskResult -> result.complete(null)); // Only takes effect if the player was gone before the task could run.
+            } catch (Exception e) {
+                // Otherwise the jump or sneak waiting on the result would never be handled.
+                Elevators.getElevatorsLogger().log(Level.WARNING, "Failed to search for an elevator destination. Please create an issue ticket on my GitHub if one doesn't already exist: https://github.com/keehl254/Elevators/issues. Issue:\n" + ResourceHelper.cleanTrace(e));
+                result.complete(null);
+            }
+        });
+        return result;
+    }
+
+    // Finishes an async search on the player's thread. Everything that needs a block state is checked here.
+    private static ElevatorEventData validateCandidates(Player player, Elevator elevator, ElevatorSearchProfile profile, byte direction, int[] candidates, int[] solidBlocksBefore, int candidateCount) {
+        if (!player.isOnline() || !elevator.isValid())
+            return null;
+
+        World world = elevator.getLocation().getWorld();
+        int x = elevator.getLocation().getBlockX();
+        int z = elevator.getLocation().getBlockZ();
+
+        int extraSolidBlocks = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            Block tempBlock = world.getBlockAt(x, candidates[i], z);
+            ShulkerBox tempShulkerBox = ShulkerBoxHelper.getShulkerBox(tempBlock);
+            ElevatorType tempElevatorType = tempShulkerBox != null ? ElevatorHelper.getElevatorType(tempShulkerBox, false) : null;
+            if (tempElevatorType == null) {
+                ElevatorIndexService.removeElevator(tempBlock);
+                if (ElevatorColumn.isSolid(tempBlock.getType()))
+                    extraSolidBlocks++;
+                continue;
+            }
+
+            if (profile.shouldCheckType() && !elevator.getElevatorType().equals(tempElevatorType)) {
+                extraSolidBlocks++;
+                continue;
+            }
+
+            if (solidBlocksBefore[i] + extraSolidBlocks >= profile.getMaxSolidBlocks())
+                return null;
+
+            if (tempShulkerBox.getColor() != elevator.getDyeColor() && profile.shouldCheckColor())
+                continue;
+
+            Elevator tempElevator = new Elevator(tempShulkerBox, tempElevatorType);
+            if (!profile.shouldStopObstruction())
+                return new ElevatorEventData(elevator, tempElevator, direction, 0.0D);
+
+            double addition = ElevatorObstructionService.getHitBoxAddition(tempBlock.getRelative(BlockFace.UP), player);
+            if (addition >= 0)
+                return new ElevatorEventData(elevator, tempElevator, direction, Math.abs(addition));
+        }
+
+        return null;
+    }
+
+    private static ElevatorSearchProfile getSearchProfile(Elevator elevator) {
+        ElevatorType elevatorType = elevator.getElevatorType(false);
+        return (elevatorType != null ? elevatorType : elevator.getElevatorType()).getSearchProfile().forElevator(elevator);
+    }
+
+    private static int getSearchEndPoint(World world, int originY, ElevatorSearchProfile profile, byte direction, boolean ignoreDistanceCheck) {
+        int maxDistance = profile.getMaxDistance();
+        if (maxDistance == -1 || ignoreDistanceCheck)
+            maxDistance = Short.MAX_VALUE;
+
+        return Math.min(Math.max(originY + (maxDistance * direction), VersionHelper.getWorldMinHeight(world)), world.getMaxHeight());
+    }
+
+    // Finds the first indexed level past the origin in the direction of travel.
+    private static int getFirstCandidateIndex(int[] elevatorLevels, int originY, byte direction) {
+        int index = Arrays.binarySearch(elevatorLevels, originY);
+        if (index >= 0)
+            return index + direction;
+        return direction == 1 ? -index - 1 : -index - 2;
+    }
+
+    private static boolean hasIndexedLevel(Location origin, Elevator elevator, byte direction, boolean ignoreDistanceCheck) {
+        direction = (byte) (direction > 0 ? 1 : -1);
+        World world = origin.getWorld();
+        int endPointY = getSearchEndPoint(world, origin.getBlockY(), getSearchProfile(elevator), direction, ignoreDistanceCheck);
+        return hasIndexedLevel(ElevatorIndexService.getElevatorLevels(world, origin.getBlockX(), origin.getBlockZ()), origin.getBlockY(), endPointY, direction);
+    }
+
+    // Whether the index has any level between the origin and the end point, whether or not it turns out usable.
+    private static boolean hasIndexedLevel(int[] elevatorLevels, int originY, int endPointY, byte direction) {
+        int index = getFirstCandidateIndex(elevatorLevels, originY, direction);
+        return index >= 0 && index < elevatorLevels.length && (elevatorLevels[index] - endPointY) * direction <= 0;
+    }
+
+    private static int countSolidBlocks(World world, int x, int z, int fromY, int toY, byte direction) {
+        int solidBlocks = 0;
+        for (int y = fromY + direction; y != toY; y += direction) {
+            if (ElevatorColumn.isSolid(world.getBlockAt(x, y, z).getType()))
+                solidBlocks++;
+        }
+        return solidBlocks;
+    }
+
     public static void setElevatorDisabled(ShulkerBox shulkerBox) {
         shulkerBox.setMetadata("elevator-disabled", new FixedMetadataValue(Elevators.getInstance(), true));
     }
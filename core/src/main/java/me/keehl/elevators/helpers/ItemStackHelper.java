@@ -20,11 +20,26 @@ public class ItemStackHelper {
 
     private static final Pattern dyeColorPattern = Pattern.compile("(?:LIGHT_)?.+?(?=_)");
 
+    // Both are filled in per material the first time it is asked for, and indexed by dye color ordinal.
+    private static final Map<Material, Material[]> variants = new EnumMap<>(Material.class);
+    private static final Map<Material, DyeColor> dyeColors = new EnumMap<>(Material.class);
+
     public static boolean isNotShulkerBox(Material type) {
         return !TagHelper.SHULKER_BOXES.isTagged(type);
     }
 
     public static DyeColor getDyeColorFromMaterial(Material material) {
+        synchronized (dyeColors) {
+            if (dyeColors.containsKey(material))
+                return dyeColors.get(material);
+
+            DyeColor dyeColor = findDyeColorFromMaterial(material);
+            dyeColors.put(material, dyeColor);
+            return dyeColor;
+        }
+    }
+
+    private static DyeColor findDyeColorFromMaterial(Material material) {
         Matcher matcher = dyeColorPattern.matcher(material.name());
         if(!matcher.find())
             return null;
@@ -38,6 +53,20 @@ public class ItemStackHelper {
     }
 
     public static Material getVariant(Material type, DyeColor color) {
+        synchronized (variants) {
+            Material[] typeVariants = variants.get(type);
+            if (typeVariants == null) {
+                DyeColor[] colors = DyeColor.values();
+                typeVariants = new Material[colors.length];
+                for (DyeColor variantColor : colors)
+                    typeVariants[variantColor.ordinal()] = findVariant(type, variantColor);
+                variants.put(type, typeVariants);
+            }
+            return typeVariants[color.ordinal()];
+        }
+    }
+
+    private static Material findVariant(Material type, DyeColor color) {
         String name = type.toString().toLowerCase();
 
         for (DyeColor tColor : DyeColor.values()) {
@@ -49,36 +78,77 @@ public class ItemStackHelper {
         return variant == null ? type : variant;
     }
 
-    private static ItemStack findElevatorType(ElevatorType elevatorType, ItemStack item, Inventory inv) {
-        ItemStack elevator = null;
-        int maxStackSize = ElevatorSettingService.getElevatorSettingValue(elevatorType, InternalElevatorSettingType.MAX_STACK_SIZE);
-        for (ItemStack content : inv.getContents()) {
-            if (content == null || content.getType().equals(Material.AIR))
+    /**
+     * Adds elevators to an inventory in one pass over its contents. Partial stacks that match the given elevator
+     * are topped up to the type's max stack size first, in slot order, and what remains is placed into empty slots as
+     * new stacks of up to the max stack size.
+     *
+     * @param matchPrototype partial stacks are only topped up if they are similar to this.
+     * @param newPrototype   copied for the new stacks.
+     * @return how many elevators did not fit.
+     */
+    private static int mergeIntoInventory(ElevatorType elevatorType, ItemStack matchPrototype, ItemStack newPrototype, int amount, Inventory inventory) {
+        int maxStackSize = Math.max(1, ElevatorSettingService.getElevatorSettingValue(elevatorType, InternalElevatorSettingType.MAX_STACK_SIZE));
+
+        ItemStack[] contents = inventory.getContents();
+        int storageSize = inventory.getStorageContents().length; // Empty armor and offhand slots are never filled.
+        int[] emptySlots = new int[contents.length];
+        int emptySlotCount = 0;
+
+        for (int slot = 0; slot < contents.length && amount > 0; slot++) {
+            ItemStack content = contents[slot];
+            if (content == null || content.getType() == Material.AIR) {
+                if (slot < storageSize)
+                    emptySlots[emptySlotCount++] = slot;
                 continue;
-            if (ElevatorHelper.getElevatorType(content) != null && content.isSimilar(item)) {
-                if (!Objects.equals(ElevatorHelper.getElevatorType(content), elevatorType))
-                    continue;
-                if (content.getAmount() >= maxStackSize)
-                    continue;
-                elevator = content;
-                break;
             }
+
+            if (content.getType() != matchPrototype.getType() || content.getAmount() >= maxStackSize)
+                continue;
+            if (ElevatorHelper.getElevatorType(content) != elevatorType || !content.isSimilar(matchPrototype))
+                continue;
+
+            int amountToGive = Math.min(maxStackSize - content.getAmount(), amount);
+            content.setAmount(content.getAmount() + amountToGive);
+            inventory.setItem(slot, content);
+            amount -= amountToGive;
+        }
+
+        for (int i = 0; i < emptySlotCount && amount > 0; i++) {
+            int amountToGive = Math.min(maxStackSize, amount);
+            ItemStack newItem = newPrototype.clone();
+            newItem.setAmount(amountToGive);
+            inventory.setItem(emptySlots[i], newItem);
+            amount -= amountToGive;
         }
-        return elevator;
+
+        return amount;
     }
 
+    /**
+     * @return a new item of the type in the given color. Copied from the type's template for the color, which is built
+     * the first time it is needed and again whenever the type's display name or lore changes.
+     */
     public static ItemStack createItemStackFromElevatorType(ElevatorType elevatorType, DyeColor dyeColor) {
+        return elevatorType.getItemTemplate(dyeColor).clone();
+    }
+
+    /**
+     * Builds an item of the type from scratch. Use {@link #createItemStackFromElevatorType(ElevatorType, DyeColor)}
+     * instead, which copies a template built by this.
+     */
+    public static ItemStack buildItemStackFromElevatorType(ElevatorType elevatorType, DyeColor dyeColor) {
         ItemStack itemStack = new ItemStack(getVariant(Material.WHITE_SHULKER_BOX, dyeColor), 1);
         ItemMeta meta = itemStack.getItemMeta();
         if (meta == null) return itemStack; // How?
 
         meta.setDisplayName(MessageHelper.formatLineColors(ElevatorSettingService.getElevatorSettingValue(elevatorType, InternalElevatorSettingType.DISPLAY_NAME)));
         meta.setLore(MessageHelper.formatListColors(ElevatorSettingService.getElevatorSettingValue(elevatorType, InternalElevatorSettingType.LORE_LINES)));
+        ElevatorDataContainerService.setElevatorKey(meta, elevatorType);
+        ElevatorDataContainerService.setItemCurrent(meta, elevatorType);
 
         itemStack.setItemMeta(meta);
 
-        ElevatorDataContainerService.setElevatorKey(itemStack, elevatorType);
-
         return itemStack;
     }
 
@@ -93,10 +163,22 @@ public class ItemStackHelper {
     }
 
     public static void updateElevator(ElevatorType elevatorType, ItemStack currentStack) {
-        ItemStack newStack = createItemStackFromElevatorType(elevatorType, getDyeColorFromMaterial(currentStack.getType()));
-        newStack.setAmount(currentStack.getAmount());
+        ItemMeta meta = currentStack.getItemMeta();
+        if (meta != null)
+            updateElevator(elevatorType, currentStack, meta);
+    }
+
+    /**
+     * Resets the item to a fresh item of its type, unless it is already up to date.
+     *
+     * @param meta the current meta of the item, when the caller has already read it.
+     */
+    public static void updateElevator(ElevatorType elevatorType, ItemStack currentStack, ItemMeta meta) {
+        if (ElevatorDataContainerService.isItemCurrent(meta, elevatorType))
+            return;
 
-        currentStack.setItemMeta(newStack.getItemMeta());
+        // The template is only read from, as getItemMeta hands out a copy.
+        currentStack.setItemMeta(elevatorType.getItemTemplate(getDyeColorFromMaterial(currentStack.getType())).getItemMeta());
     }
 
     public static void giveElevator(Item itemEntity, Inventory inv) {
@@ -104,26 +186,16 @@ public class ItemStackHelper {
         ElevatorType elevatorType = ElevatorHelper.getElevatorType(item);
         if (elevatorType == null)
             return;
-        ElevatorDataContainerService.updateItemStackFromV2(item, elevatorType);
-
         ItemMeta meta = item.getItemMeta();
-        if (meta != null) {
+        if (meta != null && !ElevatorDataContainerService.isItemCurrent(meta, elevatorType)) {
+            ElevatorDataContainerService.updateItemMetaFromV2(meta, elevatorType);
             meta.setDisplayName(MessageHelper.formatLineColors(ElevatorSettingService.getElevatorSettingValue(elevatorType, InternalElevatorSettingType.DISPLAY_NAME)));
             meta.setLore(MessageHelper.formatListColors(ElevatorSettingService.getElevatorSettingValue(elevatorType, InternalElevatorSettingType.LORE_LINES)));
+            ElevatorDataContainerService.setItemCurrent(meta, elevatorType);
             item.setItemMeta(meta);
         }
 
-        while (item.getAmount() > 0) {
-            ItemStack elevator = findElevatorType(elevatorType, item, inv);
-            if (elevator == null) {
-                elevator = item.clone();
-                elevator.setAmount(1);
-                if (!inv.addItem(elevator).isEmpty())
-                    break;
-            } else
-                elevator.setAmount(elevator.getAmount() + 1);
-            item.setAmount(item.getAmount() - 1);
-        }
+        item.setAmount(mergeIntoInventory(elevatorType, item, item, item.getAmount(), inv));
         if (item.getAmount() <= 0)
             itemEntity.remove();
         else
@@ -140,61 +212,30 @@ public class ItemStackHelper {
         displayName = MessageHelper.formatLineColors(displayName);
         lore = MessageHelper.formatListColors(lore);
 
-        Map<ItemStack, Integer> partialList = new HashMap<>();
         ItemStack newElevator = ItemStackHelper.createItemStackFromElevatorType(elevatorType, getDyeColorFromMaterial(dyeMaterial));
 
-        int maxStackSize = ElevatorSettingService.getElevatorSettingValue(elevatorType, InternalElevatorSettingType.MAX_STACK_SIZE);
-
-        for(ItemStack inventoryItem : inventory.getContents()) {
-            if(inventoryItem == null) continue;
-            if(inventoryItem.getType() != dyeMaterial) continue;
-            if(ItemStackHelper.isNotShulkerBox(inventoryItem.getType())) continue; // This should technically be caught on the last line.
-            if(!ElevatorHelper.isElevator(inventoryItem)) continue;
-            if(ElevatorHelper.getElevatorType(inventoryItem) != elevatorType) continue;
-
-            if(inventoryItem.getAmount() >= maxStackSize) continue; // Dud .-.
-
-            // Found our first partial :)
-
-            if(!inventoryItem.isSimilar(newElevator)) continue;
-
-            int amountToGive = maxStackSize - inventoryItem.getAmount();
-            amountToGive = Math.min(amountToGive, itemAmount);
-
-            itemAmount -= amountToGive;
-            inventoryItem.setAmount(inventoryItem.getAmount() + amountToGive);
-
-            if(itemAmount == 0)
-                break;
-        }
-
-        if(itemAmount > 0) {
-            ItemMeta itemMeta = newElevator.getItemMeta();
+        // Partial stacks are matched against a fresh elevator, while new stacks carry the name and lore given.
+        ItemStack namedElevator = newElevator;
+        ItemMeta itemMeta = newElevator.getItemMeta();
+        if (itemMeta != null && (!Objects.equals(itemMeta.getDisplayName(), displayName) || !Objects.equals(itemMeta.getLore(), lore))) {
+            namedElevator = newElevator.clone();
             itemMeta.setDisplayName(displayName);
             itemMeta.setLore(lore);
-            newElevator.setItemMeta(itemMeta);
-
-            int leftoverToGive = itemAmount % maxStackSize;
-            int stacksToGive = (itemAmount - leftoverToGive) / maxStackSize;
-            for(int i=0; i < stacksToGive; i++) {
-                ItemStack newItem = newElevator.clone();
-                newItem.setAmount(maxStackSize);
-
-                partialList.put(newItem, maxStackSize);
-            }
-
-            ItemStack newItem = newElevator.clone();
-            newItem.setAmount(leftoverToGive);
-            partialList.put(newItem, leftoverToGive);
+            // The name and lore are no longer those of the type, so the item must not pass as up to date.
+            ElevatorDataContainerService.clearItemCurrent(itemMeta);
+            namedElevator.setItemMeta(itemMeta);
         }
 
-        List<ItemStack> keySet = new ArrayList<>(partialList.keySet());
-        for(ItemStack itemKey : keySet) {
-            int firstEmpty = inventory.firstEmpty();
-            if(firstEmpty == -1) break;
+        int leftover = mergeIntoInventory(elevatorType, newElevator, namedElevator, itemAmount, inventory);
 
-            inventory.setItem(firstEmpty, itemKey);
-            partialList.remove(itemKey);
+        // Keyed by identity, as the leftover stacks are often equal to one another.
+        Map<ItemStack, Integer> partialList = new IdentityHashMap<>();
+        int maxStackSize = Math.max(1, ElevatorSettingService.getElevatorSettingValue(elevatorType, InternalElevatorSettingType.MAX_STACK_SIZE));
+        while (leftover > 0) {
+            ItemStack newItem = namedElevator.clone();
+            newItem.setAmount(Math.min(maxStackSize, leftover));
+            partialList.put(newItem, newItem.getAmount());
+            leftover -= newItem.getAmount();
         }
 
         return partialList;
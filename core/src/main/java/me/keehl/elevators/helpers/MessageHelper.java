@@ -21,7 +21,6 @@ import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.stream.IntStream;
 
 public class MessageHelper {
 
@@ -205,7 +204,8 @@ public class MessageHelper {
 
         char[] hexChars = new char[chars.length / 2];
 
-        IntStream.range(0, chars.length).filter(value -> value % 2 != 0).forEach(value -> hexChars[value / 2] = chars[value]);
+        for (int i = 1; i < chars.length; i += 2)
+            hexChars[i / 2] = chars[i];
 
         try {
             return new String(ColorHelper.decodeHex(hexChars), StandardCharsets.UTF_8);
@@ -1,5 +1,6 @@
 package me.keehl.elevators.models;
 
+import me.keehl.elevators.services.ElevatorSettingService;
 import me.keehl.elevators.services.ElevatorTypeService;
 import org.bukkit.DyeColor;
 import org.bukkit.Location;
@@ -11,6 +12,8 @@ public class Elevator {
 
     private final ElevatorType elevatorType;
 
+    private ResolvedElevatorSettings resolvedSettings;
+
     public Elevator(ShulkerBox shulkerBox, ElevatorType elevatorType) {
         this.shulkerBox = shulkerBox;
         this.elevatorType = elevatorType;
@@ -38,6 +41,23 @@ public class Elevator {
         return this.shulkerBox.getColor();
     }
 
+    /**
+     * @return the setting values of this elevator. They are resolved once and reused until the elevator is edited or
+     * the settings change.
+     */
+    public ResolvedElevatorSettings getResolvedSettings() {
+        ResolvedElevatorSettings resolvedSettings = this.resolvedSettings;
+        if (resolvedSettings == null || resolvedSettings.getGeneration() != ElevatorSettingService.getSettingGeneration()) {
+            resolvedSettings = new ResolvedElevatorSettings(this);
+            this.resolvedSettings = resolvedSettings;
+        }
+        return resolvedSettings;
+    }
+
+    public void clearResolvedSettings() {
+        this.resolvedSettings = null;
+    }
+
     public boolean isValid() {
         return this.getLocation().getBlock().getType() == this.shulkerBox.getType() && this.elevatorType == getElevatorType(false);
     }
@@ -145,7 +145,7 @@ public abstract class ElevatorAction {
             this.variableData.put(grouping, value);
 
         if(ElevatorConfigService.isConfigLoaded())
-            Elevators.getInstance().saveConfig();
+            Elevators.saveConfig(this.elevatorType);
     }
 
     private boolean calculateVariableFromAlias(String groupingAlias, String groupingValue) {
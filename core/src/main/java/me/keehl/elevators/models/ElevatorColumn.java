@@ -0,0 +1,121 @@
+package me.keehl.elevators.models;
+
+import me.keehl.elevators.helpers.TagHelper;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+
+import java.util.EnumSet;
+
+/**
+ * The block types of part of a single x/z column, read once out of a chunk snapshot into bitsets. A search can walk
+ * the column without fetching a block or block state for anything that is not a candidate elevator.
+ */
+public class ElevatorColumn {
+
+    /**
+     * Searches spanning fewer blocks than this read the world directly, since taking a chunk snapshot costs more than
+     * fetching a handful of blocks.
+     */
+    public static final int SNAPSHOT_THRESHOLD = 48;
+
+    private static final EnumSet<Material> SOLID_MATERIALS = EnumSet.noneOf(Material.class);
+    private static final EnumSet<Material> SHULKER_BOX_MATERIALS = EnumSet.noneOf(Material.class);
+
+    static {
+        for (Material material : Material.values()) {
+            if (!material.isLegacy() && material.isBlock() && material.isSolid())
+                SOLID_MATERIALS.add(material);
+        }
+        SHULKER_BOX_MATERIALS.addAll(TagHelper.SHULKER_BOXES.getValues());
+    }
+
+    private final int minY;
+    private final int maxY;
+
+    private final long[] solidBlocks;
+    private final Material[] shulkerBoxes; // Null for anything that is not a shulker box.
+
+    private ElevatorColumn(int minY, int maxY) {
+        this.minY = minY;
+        this.maxY = maxY;
+
+        this.solidBlocks = new long[((maxY - minY) >> 6) + 1];
+        this.shulkerBoxes = new Material[maxY - minY + 1];
+    }
+
+    /**
+     * Reads the blocks of the column between minY and maxY, both inclusive.
+     */
+    public static ElevatorColumn fromSnapshot(ChunkSnapshot snapshot, int x, int z, int minY, int maxY) {
+        ElevatorColumn column = new ElevatorColumn(minY, maxY);
+        int chunkX = x & 15;
+        int chunkZ = z & 15;
+
+        for (int y = minY; y <= maxY; y++) {
+            Material type = snapshot.getBlockType(chunkX, y, chunkZ);
+            int bit = y - minY;
+            if (SOLID_MATERIALS.contains(type))
+                column.solidBlocks[bit >> 6] |= 1L << bit;
+            if (SHULKER_BOX_MATERIALS.contains(type))
+                column.shulkerBoxes[bit] = type;
+        }
+        return column;
+    }
+
+    public static boolean isSolid(Material type) {
+        return SOLID_MATERIALS.contains(type);
+    }
+
+    public static boolean isShulkerBox(Material type) {
+        return SHULKER_BOX_MATERIALS.contains(type);
+    }
+
+    public boolean contains(int y) {
+        return y >= this.minY && y <= this.maxY;
+    }
+
+    public boolean isSolid(int y) {
+        return this.contains(y) && isSet(this.solidBlocks, y - this.minY);
+    }
+
+    public boolean isShulkerBox(int y) {
+        return this.getShulkerBoxType(y) != null;
+    }
+
+    /**
+     * @return the material of the shulker box at the Y level, which also tells its color. Null if there is none.
+     */
+    public Material getShulkerBoxType(int y) {
+        return this.contains(y) ? this.shulkerBoxes[y - this.minY] : null;
+    }
+
+    /**
+     * @return the number of solid blocks strictly between the two Y levels.
+     */
+    public int countSolidBlocks(int fromY, int toY) {
+        int lowY = Math.max(Math.min(fromY, toY) + 1, this.minY);
+        int highY = Math.min(Math.max(fromY, toY) - 1, this.maxY);
+        if (lowY > highY)
+            return 0;
+
+        int fromBit = lowY - this.minY;
+        int toBit = highY - this.minY;
+        int fromWord = fromBit >> 6;
+        int toWord = toBit >> 6;
+
+        long firstMask = -1L << fromBit;
+        long lastMask = -1L >>> (63 - (toBit & 63));
+        if (fromWord == toWord)
+            return Long.bitCount(this.solidBlocks[fromWord] & firstMask & lastMask);
+
+        int count = Long.bitCount(this.solidBlocks[fromWord] & firstMask);
+        for (int word = fromWord + 1; word < toWord; word++)
+            count += Long.bitCount(this.solidBlocks[word]);
+        return count + Long.bitCount(this.solidBlocks[toWord] & lastMask);
+    }
+
+    private static boolean isSet(long[] bits, int bit) {
+        return (bits[bit >> 6] & (1L << bit)) != 0;
+    }
+
+}
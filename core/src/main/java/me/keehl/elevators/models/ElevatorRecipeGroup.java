@@ -70,6 +70,13 @@ public class ElevatorRecipeGroup extends ConfigRecipe {
         return this.recipeList.stream().filter(i -> recipe.getKey().equals(i.getNamespacedKey())).anyMatch(i -> permissible.hasPermission(i.getPermission()));
     }
 
+    /**
+     * @return the recipes built by the last refresh. Registering them with the server is left to the recipe service.
+     */
+    public List<ShapedRecipe> getRecipes() {
+        return this.recipeList.stream().map(ElevatorRecipe::getRecipe).collect(Collectors.toList());
+    }
+
     public List<NamespacedKey> getNameSpacedKeys() {
         return this.recipeList.stream().map(ElevatorRecipe::getNamespacedKey).collect(Collectors.toList());
     }
@@ -124,7 +131,6 @@ public class ElevatorRecipeGroup extends ConfigRecipe {
         setIngredientRunnables.forEach(Runnable::run);
 
         this.recipeList.add(new ElevatorRecipe(permission, namespacedKey, shapedRecipe));
-        Bukkit.addRecipe(shapedRecipe);
     }
 
     private static class ElevatorRecipe {
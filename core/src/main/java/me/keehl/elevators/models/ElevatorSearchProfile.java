@@ -0,0 +1,111 @@
+package me.keehl.elevators.models;
+
+import me.keehl.elevators.services.ElevatorSettingService;
+import me.keehl.elevators.util.InternalElevatorSettingType;
+
+import java.util.List;
+
+/**
+ * An immutable snapshot of the settings used while searching for a destination elevator. Profiles are built once per
+ * elevator type and setting generation, so a search only reads plain fields.
+ */
+public class ElevatorSearchProfile {
+
+    private final int generation;
+
+    private final int maxDistance;
+    private final int maxSolidBlocks;
+    private final boolean stopsObstruction;
+    private final boolean checkColor;
+    private final boolean checkType;
+
+    // Settings that individual elevators are allowed to override. Null if the type has the setting disabled.
+    private final SettingHandle<Boolean> stopsObstructionSetting;
+    private final SettingHandle<Boolean> checkColorSetting;
+    private final SettingHandle<Boolean> checkTypeSetting;
+
+    public ElevatorSearchProfile(ElevatorType elevatorType) {
+        this.generation = ElevatorSettingService.getSettingGeneration();
+
+        this.maxDistance = elevatorType.getMaxDistanceAllowedBetweenElevators();
+        this.maxSolidBlocks = elevatorType.getMaxSolidBlocksAllowedBetweenElevators();
+        this.stopsObstruction = elevatorType.shouldStopObstructedTeleport();
+        this.checkColor = elevatorType.shouldValidateSameColor();
+        this.checkType = elevatorType.checkDestinationElevatorType();
+
+        List<String> disabledSettings = elevatorType.getDisabledSettings();
+        this.stopsObstructionSetting = getOverridableSetting(InternalElevatorSettingType.STOP_OBSTRUCTION, disabledSettings);
+        this.checkColorSetting = getOverridableSetting(InternalElevatorSettingType.CHECK_COLOR, disabledSettings);
+        this.checkTypeSetting = getOverridableSetting(InternalElevatorSettingType.CLASS_CHECK, disabledSettings);
+    }
+
+    private ElevatorSearchProfile(ElevatorSearchProfile profile, boolean stopsObstruction, boolean checkColor, boolean checkType) {
+        this.generation = profile.generation;
+
+        this.maxDistance = profile.maxDistance;
+        this.maxSolidBlocks = profile.maxSolidBlocks;
+        this.stopsObstruction = stopsObstruction;
+        this.checkColor = checkColor;
+        this.checkType = checkType;
+
+        this.stopsObstructionSetting = null;
+        this.checkColorSetting = null;
+        this.checkTypeSetting = null;
+    }
+
+    private static SettingHandle<Boolean> getOverridableSetting(InternalElevatorSettingType settingType, List<String> disabledSettings) {
+        if (disabledSettings.contains(settingType.getSettingName()))
+            return null;
+        return ElevatorSettingService.getSettingHandle(settingType);
+    }
+
+    /**
+     * @return this profile with any values stored on the elevator itself applied. Returns this profile if the
+     * elevator has no overrides.
+     */
+    public ElevatorSearchProfile forElevator(Elevator elevator) {
+        if (this.stopsObstructionSetting == null && this.checkColorSetting == null && this.checkTypeSetting == null)
+            return this;
+
+        boolean stopsObstruction = getIndividualValue(this.stopsObstructionSetting, elevator, this.stopsObstruction);
+        boolean checkColor = getIndividualValue(this.checkColorSetting, elevator, this.checkColor);
+        boolean checkType = getIndividualValue(this.checkTypeSetting, elevator, this.checkType);
+        if (stopsObstruction == this.stopsObstruction && checkColor == this.checkColor && checkType == this.checkType)
+            return this;
+
+        return new ElevatorSearchProfile(this, stopsObstruction, checkColor, checkType);
+    }
+
+    private static boolean getIndividualValue(SettingHandle<Boolean> setting, Elevator elevator, boolean globalValue) {
+        if (setting == null)
+            return globalValue;
+
+        Boolean value = elevator.getResolvedSettings().getValue(setting);
+        return value != null ? value : globalValue;
+    }
+
+    public int getGeneration() {
+        return this.generation;
+    }
+
+    public int getMaxDistance() {
+        return this.maxDistance;
+    }
+
+    public int getMaxSolidBlocks() {
+        return this.maxSolidBlocks;
+    }
+
+    public boolean shouldStopObstruction() {
+        return this.stopsObstruction;
+    }
+
+    public boolean shouldCheckColor() {
+        return this.checkColor;
+    }
+
+    public boolean shouldCheckType() {
+        return this.checkType;
+    }
+
+}
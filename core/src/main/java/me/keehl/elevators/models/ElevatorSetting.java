@@ -4,6 +4,7 @@ import me.keehl.elevators.Elevators;
 import me.keehl.elevators.helpers.ItemStackHelper;
 import me.keehl.elevators.helpers.MessageHelper;
 import me.keehl.elevators.services.ElevatorDataContainerService;
+import me.keehl.elevators.services.ElevatorIndexService;
 import me.keehl.elevators.services.configs.versions.configv5_2_0.ConfigSettings;
 import me.keehl.elevators.util.persistantDataTypes.ElevatorsDataType;
 import org.bukkit.ChatColor;
@@ -30,6 +31,8 @@ public abstract class ElevatorSetting<T> {
 
     private NamespacedKey containerKey;
 
+    SettingHandle<T> handle; // Set once the setting is registered.
+
     private final Map<String, String> actions = new HashMap<>();
 
     public ElevatorSetting(JavaPlugin plugin, @Subst("test_key") @Pattern("[a-z0-9/._-]+") String settingName, ItemStack icon) {
@@ -112,14 +115,19 @@ public abstract class ElevatorSetting<T> {
 
 
     public final T getIndividualValue(Elevator elevator) {
+        if (this.handle == null)
+            return this.resolveIndividualValue(elevator, elevator.getElevatorType(false));
 
-        if(!this.isSettingGlobalOnly(elevator) && this.containerKey != null) {
-            T value = ElevatorDataContainerService.getElevatorValue(elevator.getShulkerBox(), this.containerKey, this.getGlobalValue(elevator.getElevatorType(false)));
-            if (value != null)
-                return value;
-        }
+        return elevator.getResolvedSettings().getValue(this.handle);
+    }
+
+    final T resolveIndividualValue(Elevator elevator, ElevatorType elevatorType) {
+        T globalValue = this.getGlobalValue(elevatorType);
+        if (this.containerKey == null || elevatorType.getDisabledSettings().contains(this.settingName) || !this.canBeEditedIndividually(elevator))
+            return globalValue;
 
-        return this.getGlobalValue(elevator.getElevatorType(false));
+        T value = ElevatorDataContainerService.getElevatorValue(elevator.getShulkerBox(), this.containerKey, globalValue);
+        return value != null ? value : globalValue;
     }
 
     public void setIndividualValue(Elevator elevator, T value) {
@@ -133,6 +141,8 @@ public abstract class ElevatorSetting<T> {
 
         ElevatorDataContainerService.setElevatorValue(elevator.getShulkerBox(), this.containerKey, value);
         elevator.getShulkerBox().update();
+        elevator.clearResolvedSettings();
+        ElevatorIndexService.invalidateShafts(elevator.getShulkerBox().getBlock());
     }
 
     public final void applyToElevatorSettings(ElevatorType elevatorType, ConfigSettings settings) {
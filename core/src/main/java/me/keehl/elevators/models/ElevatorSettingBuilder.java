@@ -102,6 +102,14 @@ public class ElevatorSettingBuilder<T> {
 
         }
 
+        /**
+         * @return the handle given to this setting when it was registered. Reading the setting through it skips any
+         * lookup by name.
+         */
+        public SettingHandle<T> getHandle() {
+            return ElevatorSettingService.getSettingHandle(this);
+        }
+
         @Override()
         public boolean canBeEditedIndividually(Elevator elevator) {
             return this.canEditIndividuallyFunc.apply(elevator) && !elevator.getElevatorType(false).getDisabledSettings().contains(this.settingName);
@@ -117,7 +125,7 @@ public class ElevatorSettingBuilder<T> {
         public void onClickGlobal(Player player, ElevatorType elevatorType, Runnable returnMethod, InventoryClickEvent clickEvent, T currentValue) {
             ElevatorSettingClickContext<T> clickContext = new ElevatorSettingClickContext<>(player, returnMethod, clickEvent, currentValue, newValue -> {
                 elevatorType.getSettingsConfig().setData(this.settingName, newValue, this.comments);
-                Elevators.getInstance().saveConfig();
+                Elevators.saveConfig(elevatorType);
             });
             this.onClick.accept(clickContext);
         }
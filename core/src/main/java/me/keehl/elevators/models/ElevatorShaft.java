@@ -0,0 +1,79 @@
+package me.keehl.elevators.models;
+
+import me.keehl.elevators.services.ElevatorDataContainerService;
+import org.bukkit.DyeColor;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The ordered floors of a single x/z column, as seen from an elevator in that column. Every elevator that can reach
+ * the others with the same search settings shares the same shaft, so floor numbers are simple lookups.
+ */
+public class ElevatorShaft {
+
+    private final String shaftKey;
+    private final int generation;
+
+    private final int[] floorLevels;
+    private final String[] floorNames;
+    private final DyeColor[] floorColors;
+
+    /**
+     * @param floors every floor of the shaft, ordered from the bottom up.
+     */
+    public ElevatorShaft(String shaftKey, int generation, List<Elevator> floors) {
+        this.shaftKey = shaftKey;
+        this.generation = generation;
+
+        this.floorLevels = new int[floors.size()];
+        this.floorNames = new String[floors.size()];
+        this.floorColors = new DyeColor[floors.size()];
+        for (int i = 0; i < floors.size(); i++) {
+            Elevator floor = floors.get(i);
+            this.floorLevels[i] = floor.getLocation().getBlockY();
+            this.floorNames[i] = ElevatorDataContainerService.getStoredFloorName(floor);
+            this.floorColors[i] = floor.getDyeColor();
+        }
+    }
+
+    public String getShaftKey() {
+        return this.shaftKey;
+    }
+
+    public int getGeneration() {
+        return this.generation;
+    }
+
+    public boolean hasFloorAt(int y) {
+        return Arrays.binarySearch(this.floorLevels, y) >= 0;
+    }
+
+    public int getFloorCount() {
+        return this.floorLevels.length;
+    }
+
+    /**
+     * @return the 1 based floor number of the elevator at the provided Y level, or the floor count if there is none.
+     */
+    public int getFloorNumber(int y) {
+        int index = Arrays.binarySearch(this.floorLevels, y);
+        return index >= 0 ? index + 1 : this.floorLevels.length;
+    }
+
+    public int getFloorLevel(int floorNumber) {
+        return this.floorLevels[floorNumber - 1];
+    }
+
+    /**
+     * @return the name given to the floor, or null if it was never named.
+     */
+    public String getFloorName(int floorNumber) {
+        return this.floorNames[floorNumber - 1];
+    }
+
+    public DyeColor getFloorColor(int floorNumber) {
+        return this.floorColors[floorNumber - 1];
+    }
+
+}
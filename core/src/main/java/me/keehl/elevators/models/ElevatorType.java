@@ -1,15 +1,20 @@
 package me.keehl.elevators.models;
 
 import me.keehl.elevators.Elevators;
+import me.keehl.elevators.helpers.ItemStackHelper;
+import me.keehl.elevators.helpers.MessageHelper;
 import me.keehl.elevators.services.ElevatorActionService;
 import me.keehl.elevators.services.ElevatorHologramService;
 import me.keehl.elevators.services.ElevatorRecipeService;
 import me.keehl.elevators.services.ElevatorSettingService;
 import me.keehl.elevators.services.configs.versions.configv5_2_0.ConfigElevatorType;
 import me.keehl.elevators.services.configs.versions.configv5_2_0.ConfigSettings;
+import me.keehl.elevators.util.InternalElevatorSettingType;
 import org.bukkit.Bukkit;
 import org.bukkit.Chunk;
+import org.bukkit.DyeColor;
 import org.bukkit.World;
+import org.bukkit.inventory.ItemStack;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -24,6 +29,16 @@ public class ElevatorType extends ConfigElevatorType {
     private final transient List<ElevatorAction> actionsUp = new ArrayList<>();
     private final transient List<ElevatorAction> actionsDown = new ArrayList<>();
 
+    private transient ElevatorSearchProfile searchProfile;
+
+    private transient boolean loaded = false;
+
+    private transient int itemRevision;
+    private transient int itemRevisionGeneration = -1;
+
+    private transient ItemStack[] itemTemplates;
+    private transient int itemTemplateRevision;
+
     //endregion
 
     /* region property getters */
@@ -51,6 +66,18 @@ public class ElevatorType extends ConfigElevatorType {
         return this.settings;
     }
 
+    /**
+     * @return the destination search settings of this type. The profile is rebuilt whenever settings change.
+     */
+    public ElevatorSearchProfile getSearchProfile() {
+        ElevatorSearchProfile profile = this.searchProfile;
+        if (profile == null || profile.getGeneration() != ElevatorSettingService.getSettingGeneration()) {
+            profile = new ElevatorSearchProfile(this);
+            this.searchProfile = profile;
+        }
+        return profile;
+    }
+
     //endregion
 
     /* region property setters */
@@ -62,7 +89,7 @@ public class ElevatorType extends ConfigElevatorType {
         this.settings.displayName = displayName;
         ElevatorRecipeService.refreshRecipes();
 
-        Elevators.getInstance().saveConfig();
+        this.onSettingsChanged();
     }
 
     /**
@@ -70,7 +97,7 @@ public class ElevatorType extends ConfigElevatorType {
      */
     public void setUsePermission(String usePermission) {
         this.settings.usePermission = usePermission;
-        Elevators.getInstance().saveConfig();
+        this.onSettingsChanged();
     }
 
     /**
@@ -78,7 +105,7 @@ public class ElevatorType extends ConfigElevatorType {
      */
     public void setDyePermission(String dyePermission) {
         this.settings.dyePermission = dyePermission;
-        Elevators.getInstance().saveConfig();
+        this.onSettingsChanged();
     }
 
 
@@ -88,7 +115,7 @@ public class ElevatorType extends ConfigElevatorType {
     public void setMaxDistanceAllowedBetweenElevators(int maxDistance) {
         this.settings.maxDistance = maxDistance;
 
-        Elevators.getInstance().saveConfig();
+        this.onSettingsChanged();
     }
 
     /**
@@ -97,7 +124,7 @@ public class ElevatorType extends ConfigElevatorType {
     public void setMaxStackSize(int maxStackSize) {
         this.settings.maxStackSize = maxStackSize;
 
-        Elevators.getInstance().saveConfig();
+        this.onSettingsChanged();
     }
 
     /**
@@ -107,7 +134,7 @@ public class ElevatorType extends ConfigElevatorType {
     public void setMaxSolidBlocksAllowedBetweenElevators(int maxSolidBlocks) {
         this.settings.maxSolidBlocks = maxSolidBlocks;
 
-        Elevators.getInstance().saveConfig();
+        this.onSettingsChanged();
     }
 
     /**
@@ -116,7 +143,7 @@ public class ElevatorType extends ConfigElevatorType {
     public void setCheckDestinationElevatorType(boolean checkType) {
         this.settings.classCheck = checkType;
 
-        Elevators.getInstance().saveConfig();
+        this.onSettingsChanged();
     }
 
     /**
@@ -127,7 +154,7 @@ public class ElevatorType extends ConfigElevatorType {
     public void setElevatorRequiresPermissions(boolean checkPerms) {
         this.settings.checkPerms = checkPerms;
 
-        Elevators.getInstance().saveConfig();
+        this.onSettingsChanged();
     }
 
     /**
@@ -136,7 +163,7 @@ public class ElevatorType extends ConfigElevatorType {
     public void setCanElevatorExplode(boolean canExplode) {
         this.settings.canExplode = canExplode;
 
-        Elevators.getInstance().saveConfig();
+        this.onSettingsChanged();
     }
 
     /**
@@ -145,7 +172,7 @@ public class ElevatorType extends ConfigElevatorType {
     public void setCanDye(boolean supportDying) {
         this.settings.supportDying = supportDying;
 
-        Elevators.getInstance().saveConfig();
+        this.onSettingsChanged();
     }
 
     /**
@@ -155,7 +182,7 @@ public class ElevatorType extends ConfigElevatorType {
     public void setStopsObstructedTeleportation(boolean stopsObstruction) {
         this.settings.stopObstruction = stopsObstruction;
 
-        Elevators.getInstance().saveConfig();
+        this.onSettingsChanged();
     }
 
     /**
@@ -164,7 +191,7 @@ public class ElevatorType extends ConfigElevatorType {
     public void setShouldValidateColor(boolean checkColor) {
         this.settings.checkColor = checkColor;
 
-        Elevators.getInstance().saveConfig();
+        this.onSettingsChanged();
     }
 
     /**
@@ -172,7 +199,7 @@ public class ElevatorType extends ConfigElevatorType {
      */
     public void setShouldAllowIndividualEdit(boolean allowIndividualEdit) {
         this.settings.canEditIndividually = allowIndividualEdit;
-        Elevators.getInstance().saveConfig();
+        this.onSettingsChanged();
     }
 
     /**
@@ -182,7 +209,7 @@ public class ElevatorType extends ConfigElevatorType {
         boolean checkCreate = this.settings.hologramLines.isEmpty();
         this.settings.hologramLines = holoLines;
 
-        Elevators.getInstance().saveConfig();
+        this.onSettingsChanged();
 
         if(!ElevatorHologramService.canUseHolograms())
             return;
@@ -215,11 +242,16 @@ public class ElevatorType extends ConfigElevatorType {
         this.settings.loreLines = loreLines;
         ElevatorRecipeService.refreshRecipes();
 
-        Elevators.getInstance().saveConfig();
+        this.onSettingsChanged();
     }
 
     //endregion
 
+    private void onSettingsChanged() {
+        ElevatorSettingService.bumpSettingGeneration();
+        Elevators.saveConfig(this);
+    }
+
     @Override()
     public void onSave() {
         this.actions.up = this.getActionsUp().stream().map(ElevatorAction::serialize).collect(Collectors.toList());
@@ -248,6 +280,51 @@ public class ElevatorType extends ConfigElevatorType {
         }
 
         this.recipes = newRecipes;
+        this.loaded = true;
+    }
+
+    /**
+     * @return whether the actions of this type have been parsed since it was loaded from the config.
+     */
+    public boolean isLoaded() {
+        return this.loaded;
+    }
+
+    /**
+     * @return a number that changes whenever the display name or lore given to items of this type changes. Items are
+     * stamped with it when they are brought up to date, so a single comparison shows whether they need rewriting.
+     * Recalculated whenever the settings change, but based only on what is written to the item, so items stay current
+     * across restarts and reloads that do not change them.
+     */
+    public int getItemRevision() {
+        int generation = ElevatorSettingService.getSettingGeneration();
+        if (this.itemRevisionGeneration != generation) {
+            String displayName = MessageHelper.formatLineColors(ElevatorSettingService.getElevatorSettingValue(this, InternalElevatorSettingType.DISPLAY_NAME));
+            List<String> lore = MessageHelper.formatListColors(ElevatorSettingService.getElevatorSettingValue(this, InternalElevatorSettingType.LORE_LINES));
+
+            this.itemRevision = Objects.hash(this.getTypeKey(), displayName, lore);
+            this.itemRevisionGeneration = generation;
+        }
+        return this.itemRevision;
+    }
+
+    /**
+     * @return the item that new items of this type and color are copied from. Must never be changed or handed out, so
+     * callers should clone it, or only read from it.
+     */
+    public synchronized ItemStack getItemTemplate(DyeColor dyeColor) {
+        int revision = this.getItemRevision();
+        if (this.itemTemplates == null || this.itemTemplateRevision != revision) {
+            this.itemTemplates = new ItemStack[DyeColor.values().length];
+            this.itemTemplateRevision = revision;
+        }
+
+        ItemStack template = this.itemTemplates[dyeColor.ordinal()];
+        if (template == null) {
+            template = ItemStackHelper.buildItemStackFromElevatorType(this, dyeColor);
+            this.itemTemplates[dyeColor.ordinal()] = template;
+        }
+        return template;
     }
 
     @Override()
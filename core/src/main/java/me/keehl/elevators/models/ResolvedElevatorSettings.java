@@ -0,0 +1,55 @@
+package me.keehl.elevators.models;
+
+import me.keehl.elevators.services.ElevatorSettingService;
+
+import java.util.Arrays;
+
+/**
+ * The setting values of a single elevator, with its own overrides applied. The elevator type is looked up once, and
+ * each setting is read from the elevator's data container at most once, the first time it is asked for. An instance
+ * lives on its {@link Elevator} and is thrown out when the elevator is edited or the settings are reloaded.
+ */
+public class ResolvedElevatorSettings {
+
+    private static final Object UNRESOLVED = new Object();
+
+    private final Elevator elevator;
+    private final ElevatorType elevatorType;
+    private final int generation;
+
+    private final Object[] values;
+
+    public ResolvedElevatorSettings(Elevator elevator) {
+        this.elevator = elevator;
+        this.generation = ElevatorSettingService.getSettingGeneration();
+
+        ElevatorType elevatorType = elevator.getElevatorType(false);
+        this.elevatorType = elevatorType != null ? elevatorType : elevator.getElevatorType();
+
+        this.values = new Object[ElevatorSettingService.getSettingCount()];
+        Arrays.fill(this.values, UNRESOLVED);
+    }
+
+    public ElevatorType getElevatorType() {
+        return this.elevatorType;
+    }
+
+    public int getGeneration() {
+        return this.generation;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getValue(SettingHandle<T> handle) {
+        int slot = handle.getSlot();
+        if (slot >= this.values.length) // Registered after this elevator was resolved.
+            return handle.getSetting().resolveIndividualValue(this.elevator, this.elevatorType);
+
+        Object value = this.values[slot];
+        if (value == UNRESOLVED) {
+            value = handle.getSetting().resolveIndividualValue(this.elevator, this.elevatorType);
+            this.values[slot] = value;
+        }
+        return (T) value;
+    }
+
+}
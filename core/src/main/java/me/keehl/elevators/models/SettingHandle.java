@@ -0,0 +1,38 @@
+package me.keehl.elevators.models;
+
+/**
+ * A typed reference to a registered elevator setting. Handles are handed out when a setting is registered, so reading
+ * a setting through one skips any lookup by name.
+ */
+public final class SettingHandle<T> {
+
+    private final ElevatorSetting<T> setting;
+    private final int slot;
+
+    public SettingHandle(ElevatorSetting<T> setting, int slot) {
+        this.setting = setting;
+        this.slot = slot;
+
+        setting.handle = this;
+    }
+
+    public ElevatorSetting<T> getSetting() {
+        return this.setting;
+    }
+
+    /**
+     * @return the position the setting was registered at. Slots are dense, starting from 0.
+     */
+    public int getSlot() {
+        return this.slot;
+    }
+
+    public T getValue(Elevator elevator) {
+        return this.setting.getIndividualValue(elevator);
+    }
+
+    public T getValue(ElevatorType elevatorType) {
+        return this.setting.getGlobalValue(elevatorType);
+    }
+
+}
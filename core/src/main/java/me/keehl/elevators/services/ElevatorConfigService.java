@@ -1,6 +1,8 @@
 package me.keehl.elevators.services;
 
+import com.tcoded.folialib.wrapper.task.WrappedTask;
 import me.keehl.elevators.Elevators;
+import me.keehl.elevators.helpers.ResourceHelper;
 import me.keehl.elevators.models.ElevatorType;
 import me.keehl.elevators.services.configs.ConfigVersionBuilder;
 import me.keehl.elevators.services.configs.versions.configv5_2_0.ConfigEffect;
@@ -13,20 +15,53 @@ import org.bukkit.ChatColor;
 import org.bukkit.World;
 
 import java.io.File;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.logging.Level;
 
 public class ElevatorConfigService {
 
-    private static boolean invalidConfig = false;
+    private static volatile boolean invalidConfig = false;
 
-    private static ConfigRootNode<ConfigRoot> rootNode;
+    // Replaced as a whole on reload, so readers always see either the old config or the new one, never a mix.
+    private static volatile ConfigRootNode<ConfigRoot> rootNode;
 
     private static ConfigLocale defaultLocaleConfig;
 
     private static final List<Consumer<ConfigRoot>> configLoadCallbacks = new ArrayList<>();
+    private static final List<Consumer<ConfigRoot>> configPrepareCallbacks = new CopyOnWriteArrayList<>();
+
+    private static CompletableFuture<Boolean> pendingReload;
+
+    /*
+        Saves are write-behind. A change only marks the config as dirty and schedules a save, so a burst of edits from
+        the GUI ends up as a single write. The config is serialized on the scheduler, where it is safe to read, and the
+        resulting text is written to disk on a separate thread.
+
+        With splitTypeFiles enabled, each elevator type is saved to its own file in the types folder. Changes made
+        through a single type only serialize that type, and files whose text did not change are never written.
+     */
+    private static File configFile;
+    private static boolean dirty = false;
+    private static boolean allTypesDirty = false;
+    private static final Set<String> dirtyTypeKeys = new HashSet<>();
+    private static WrappedTask pendingSave;
+    private static ExecutorService saveExecutor;
+
+    // The hash of what each config file was last loaded with or saved as, by absolute path.
+    private static final Map<String, byte[]> configOnDiskHashes = new ConcurrentHashMap<>();
 
     public static void loadConfig(File configFile) {
         Elevators.pushAndHoldLog();
@@ -40,18 +75,305 @@ public class ElevatorConfigService {
         Elevators.popLog(logData -> Elevators.log("Config loaded. "+ ChatColor.YELLOW + "Took " + logData.getElapsedTime() + "ms"));
 
         configLoadCallbacks.forEach(i -> i.accept(ElevatorConfigService.rootNode.getConfig()));
-        ConfigConverter.saveConfigToFile(ElevatorConfigService.rootNode, configFile);
+        synchronized (ElevatorConfigService.class) {
+            ElevatorConfigService.configFile = configFile;
+            ElevatorConfigService.dirty = false;
+            ElevatorConfigService.dirtyTypeKeys.clear();
+            if(invalidConfig)
+                return;
+
+            // Only written if the config came out different to the files, such as when new options were added.
+            ElevatorConfigService.allTypesDirty = true;
+            writeConfigFiles(serializeConfigFiles());
+        }
+    }
+
+    /**
+     * Reads and builds the new config off the main thread, then swaps it in and runs the config callbacks on the main
+     * thread. If the file cannot be loaded, the current config is kept. Reloads requested while one is already running
+     * share its result.
+     *
+     * @return a future completed on the main thread with whether the new config was applied.
+     */
+    public static synchronized CompletableFuture<Boolean> reloadConfigAsync(File configFile) {
+        if(ElevatorConfigService.pendingReload != null)
+            return ElevatorConfigService.pendingReload;
+
+        flushConfig(); // Changes not yet written would otherwise be lost by the reload.
+
+        CompletableFuture<Boolean> reload = new CompletableFuture<>();
+        ElevatorConfigService.pendingReload = reload;
+
+        Elevators.getFoliaLib().getScheduler().runAsync(task -> {
+            ConfigRootNode<ConfigRoot> newRootNode;
+            try {
+                newRootNode = ConfigVersionBuilder.readConfig(configFile);
+                if(newRootNode == null)
+                    throw new RuntimeException("Failed to load elevators config.");
+
+                configPrepareCallbacks.forEach(i -> i.accept(newRootNode.getConfig()));
+            } catch (Exception e) {
+                Elevators.getElevatorsLogger().log(Level.SEVERE, "Error reloading config. The current config has been kept, and will not be saved over your changes. Please create an issue ticket on my GitHub with your config if you would like assistance: https://github.com/keehl254/Elevators/issues. Issue:\n" + ResourceHelper.cleanTrace(e));
+                invalidateConfig();
+                Elevators.getFoliaLib().getScheduler().runLater(() -> finishReload(reload, false), 1);
+                return;
+            }
+
+            Elevators.getFoliaLib().getScheduler().runLater(() -> {
+                ElevatorConfigService.rootNode = newRootNode;
+                ElevatorConfigService.invalidConfig = false;
+
+                try {
+                    configLoadCallbacks.forEach(i -> i.accept(newRootNode.getConfig()));
+                } finally {
+                    finishReload(reload, true);
+                }
+
+                // Picks up anything the callbacks added, such as a missing DEFAULT type. Skipped if nothing changed.
+                saveConfig(configFile);
+            }, 1);
+        });
+
+        return reload;
+    }
+
+    private static void finishReload(CompletableFuture<Boolean> reload, boolean applied) {
+        synchronized (ElevatorConfigService.class) {
+            ElevatorConfigService.pendingReload = null;
+        }
+        reload.complete(applied);
+    }
+
+    /**
+     * @return whether the config file holds something other than what was last loaded from or written to it. A file
+     * that was loaded or written before and has since been deleted counts as changed.
+     */
+    public static boolean hasConfigFileChanged(File configFile) {
+        if(!configFile.exists())
+            return configOnDiskHashes.containsKey(configFile.getAbsolutePath());
+
+        try {
+            return !isConfigOnDisk(configFile, new String(Files.readAllBytes(configFile.toPath()), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Records the text as the current content of the config file, so that writing the same text again can be skipped.
+     */
+    public static void markConfigOnDisk(File configFile, String configText) {
+        markConfigOnDisk(configFile, hashConfigText(configText));
+    }
+
+    public static void markConfigOnDisk(File configFile, byte[] configHash) {
+        configOnDiskHashes.put(configFile.getAbsolutePath(), configHash);
+    }
+
+    private static boolean isConfigOnDisk(File configFile, String configText) {
+        byte[] hash = configOnDiskHashes.get(configFile.getAbsolutePath());
+        return hash != null && MessageDigest.isEqual(hash, hashConfigText(configText));
+    }
+
+    /**
+     * @return the folder elevator types are saved to when splitTypeFiles is enabled.
+     */
+    public static File getTypeDirectory(File configFile) {
+        return new File(configFile.getParentFile(), "types");
+    }
+
+    public static byte[] hashConfigText(String configText) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(configText.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     public static void invalidateConfig() {
         invalidConfig = true;
     }
 
-    public static void saveConfig(File configFile) {
-        if(invalidConfig)
+    /**
+     * Marks the config as changed. It is written to file once the save delay from the config has passed, along with any
+     * other changes made in the meantime.
+     */
+    public static synchronized void saveConfig(File configFile) {
+        if(invalidConfig || ElevatorConfigService.rootNode == null)
+            return;
+
+        ElevatorConfigService.configFile = configFile;
+        ElevatorConfigService.dirty = true;
+        ElevatorConfigService.allTypesDirty = true;
+        schedulePendingSave();
+    }
+
+    /**
+     * Marks a single elevator type as changed. If its type is saved to a file of its own, only that file is rewritten.
+     */
+    public static synchronized void saveElevatorType(File configFile, ElevatorType elevatorType) {
+        if(invalidConfig || ElevatorConfigService.rootNode == null)
+            return;
+
+        ElevatorConfigService.configFile = configFile;
+        ElevatorConfigService.dirty = true;
+        ElevatorConfigService.dirtyTypeKeys.add(elevatorType.getTypeKey().toUpperCase());
+        schedulePendingSave();
+    }
+
+    private static void schedulePendingSave() {
+        if(ElevatorConfigService.pendingSave != null)
             return;
 
-        ConfigConverter.saveConfigToFile(ElevatorConfigService.rootNode, configFile);
+        long saveDelay = Math.max(1, ElevatorConfigService.getRootConfig().configSaveDelay);
+        ElevatorConfigService.pendingSave = Elevators.getFoliaLib().getScheduler().runLater(ElevatorConfigService::writePendingSave, saveDelay);
+    }
+
+    private static void writePendingSave() {
+        Map<File, String> configFiles;
+        ExecutorService executor;
+        synchronized (ElevatorConfigService.class) {
+            ElevatorConfigService.pendingSave = null;
+            if(!ElevatorConfigService.dirty || invalidConfig)
+                return;
+
+            configFiles = serializeConfigFiles();
+            if(configFiles.isEmpty())
+                return;
+
+            if(ElevatorConfigService.saveExecutor == null) {
+                ElevatorConfigService.saveExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "Elevators Config Saver");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            executor = ElevatorConfigService.saveExecutor;
+        }
+
+        // The executor may be shut down by a flush on another thread once the lock is released. The files have already
+        // been marked as on disk, so they are written here instead of being lost.
+        try {
+            executor.execute(() -> writeConfigFiles(configFiles));
+        } catch (RejectedExecutionException e) {
+            writeConfigFiles(configFiles);
+        }
+    }
+
+    /**
+     * Serializes the parts of the config that were marked as changed, and clears those marks.
+     *
+     * @return the text of each file that needs writing, in the order they should be written. A null text means the
+     * file should be deleted. Files that would be written with the text they already hold are left out.
+     */
+    private static Map<File, String> serializeConfigFiles() {
+        Map<File, String> configFiles = new LinkedHashMap<>();
+
+        boolean allTypes = ElevatorConfigService.allTypesDirty;
+        Set<String> typeKeys = new HashSet<>(ElevatorConfigService.dirtyTypeKeys);
+        ElevatorConfigService.dirty = false;
+        ElevatorConfigService.allTypesDirty = false;
+        ElevatorConfigService.dirtyTypeKeys.clear();
+
+        File typeDirectory = getTypeDirectory(ElevatorConfigService.configFile);
+        Set<File> staleTypeFiles = new HashSet<>();
+        File[] existingTypeFiles = typeDirectory.listFiles((dir, name) -> name.endsWith(".yml"));
+        if(existingTypeFiles != null) {
+            for(File typeFile : existingTypeFiles) {
+                if(configOnDiskHashes.containsKey(typeFile.getAbsolutePath())) // Never delete files we did not load.
+                    staleTypeFiles.add(typeFile);
+            }
+        }
+
+        String rootText;
+        if(ElevatorConfigService.getRootConfig().splitTypeFiles) {
+            for(Map.Entry<String, ElevatorType> entry : ElevatorConfigService.getElevatorTypeConfigs().entrySet()) {
+                File typeFile = new File(typeDirectory, entry.getKey().toUpperCase() + ".yml");
+                staleTypeFiles.remove(typeFile);
+                if(!allTypes && !typeKeys.contains(entry.getKey().toUpperCase()))
+                    continue;
+
+                ConfigConverter converter = ConfigConverter.getConverter(entry.getValue().getClass());
+                if(converter == null)
+                    continue;
+
+                try {
+                    Object typeData = converter.serializeValueToObject(entry.getValue());
+                    configFiles.put(typeFile, ConfigConverter.serializeConfig(ElevatorConfigService.rootNode, typeData, "elevators." + entry.getKey() + "."));
+                } catch (Exception e) {
+                    Elevators.getElevatorsLogger().log(Level.SEVERE, "Failed while saving elevator type \"" + entry.getKey() + "\". Please create an issue ticket on my GitHub if one doesn't already exist: https://github.com/keehl254/Elevators/issues. Issue:\n" + ResourceHelper.cleanTrace(e));
+                }
+            }
+
+            rootText = ConfigConverter.serializeConfig(ElevatorConfigService.rootNode, ElevatorConfigService.rootNode.serializeToObject(Collections.singleton("elevators")), "");
+        } else
+            rootText = ConfigConverter.serializeConfig(ElevatorConfigService.rootNode);
+
+        // Written after the types, so that the types are never missing from both the root file and the type files.
+        configFiles.put(ElevatorConfigService.configFile, rootText);
+        configFiles.values().removeIf(Objects::isNull); // Failed to serialize, so the file is left as it is.
+        configFiles.entrySet().removeIf(entry -> isConfigOnDisk(entry.getKey(), entry.getValue()));
+
+        for(File staleTypeFile : staleTypeFiles)
+            configFiles.put(staleTypeFile, null);
+
+        for(Map.Entry<File, String> entry : configFiles.entrySet()) {
+            if(entry.getValue() != null)
+                markConfigOnDisk(entry.getKey(), entry.getValue());
+        }
+
+        return configFiles;
+    }
+
+    /**
+     * Writes out the files from {@link #serializeConfigFiles()}, stopping at the first one that fails. Files that were
+     * not written are forgotten, so that the next save writes them again.
+     */
+    private static void writeConfigFiles(Map<File, String> configFiles) {
+        boolean failed = false;
+        for(Map.Entry<File, String> entry : configFiles.entrySet()) {
+            File file = entry.getKey();
+            if(!failed) {
+                if(entry.getValue() == null)
+                    failed = file.exists() && !file.delete();
+                else
+                    failed = !(file.getParentFile().isDirectory() || file.getParentFile().mkdirs()) || !ConfigConverter.writeConfigFile(entry.getValue(), file);
+
+                if(failed)
+                    Elevators.getElevatorsLogger().log(Level.WARNING, "Failed to save the config file \"" + file.getName() + "\". Any remaining files will be saved with the next change.");
+                else if(entry.getValue() != null)
+                    continue;
+            }
+
+            configOnDiskHashes.remove(file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Writes any unsaved changes right away, and waits for saves that are already being written to finish.
+     */
+    public static synchronized void flushConfig() {
+        if(ElevatorConfigService.pendingSave != null) {
+            ElevatorConfigService.pendingSave.cancel();
+            ElevatorConfigService.pendingSave = null;
+        }
+
+        if(ElevatorConfigService.saveExecutor != null) {
+            ElevatorConfigService.saveExecutor.shutdown();
+            try {
+                if(!ElevatorConfigService.saveExecutor.awaitTermination(10, TimeUnit.SECONDS))
+                    Elevators.getElevatorsLogger().log(Level.WARNING, "Timed out while waiting for the config to finish saving.");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                Elevators.getElevatorsLogger().log(Level.WARNING, "Interrupted while waiting for the config to finish saving. Please create an issue ticket on my GitHub if one doesn't already exist: https://github.com/keehl254/Elevators/issues. Issue:\n" + ResourceHelper.cleanTrace(e));
+            }
+            ElevatorConfigService.saveExecutor = null;
+        }
+
+        if(!ElevatorConfigService.dirty || invalidConfig || ElevatorConfigService.configFile == null)
+            return;
+
+        writeConfigFiles(serializeConfigFiles());
     }
 
     public static void addConfigCallback(Consumer<ConfigRoot> callback) {
@@ -60,6 +382,14 @@ public class ElevatorConfigService {
             callback.accept(ElevatorConfigService.rootNode.getConfig());
     }
 
+    /**
+     * Adds a callback that is given a freshly read config off the main thread, before it replaces the current one. It
+     * may be used to get slow work done ahead of the config callbacks, but must not touch any live state.
+     */
+    public static void addConfigPrepareCallback(Consumer<ConfigRoot> callback) {
+        ElevatorConfigService.configPrepareCallbacks.add(callback);
+    }
+
     public static ConfigRoot getRootConfig() {
         return ElevatorConfigService.rootNode.getConfig();
     }
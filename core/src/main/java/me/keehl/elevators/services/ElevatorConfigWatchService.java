@@ -0,0 +1,181 @@
+package me.keehl.elevators.services;
+
+import com.tcoded.folialib.wrapper.task.WrappedTask;
+import me.keehl.elevators.Elevators;
+import me.keehl.elevators.helpers.ResourceHelper;
+import me.keehl.elevators.services.configs.versions.configv5_2_0.ConfigRoot;
+import org.bukkit.ChatColor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+
+/*
+    Watches config.yml, the elevator type files and the effects folder, and reloads the config once they change.
+    Editors often save a file in several steps, so a reload waits until the files have been quiet for a second. Changes
+    to config.yml and the type files are compared with what was last loaded or saved, so the plugin's own saves do not
+    cause a reload.
+ */
+public class ElevatorConfigWatchService {
+
+    private static final long RELOAD_DELAY_TICKS = 20;
+
+    private static boolean initialized = false;
+
+    private static WatchService watchService;
+    private static Thread watchThread;
+    private static final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+
+    private static WrappedTask pendingReload;
+
+    public static void init() {
+        if (ElevatorConfigWatchService.initialized)
+            return;
+        Elevators.pushAndHoldLog();
+
+        ElevatorConfigService.addConfigCallback(ElevatorConfigWatchService::onConfigLoad);
+
+        ElevatorConfigWatchService.initialized = true;
+        Elevators.popLog(logData -> Elevators.log("Config watch service enabled. " + ChatColor.YELLOW + "Took " + logData.getElapsedTime() + "ms"));
+    }
+
+    public static void unInitialize() {
+        stopWatching();
+        ElevatorConfigWatchService.initialized = false;
+    }
+
+    private static void onConfigLoad(ConfigRoot root) {
+        if (root.watchConfigFiles && watchService == null)
+            startWatching();
+        else if (!root.watchConfigFiles && watchService != null)
+            stopWatching();
+    }
+
+    private static synchronized void startWatching() {
+        try {
+            WatchService service = FileSystems.getDefault().newWatchService();
+
+            Path configDirectory = Elevators.getConfigDirectory().toPath();
+            watchedDirectories.put(configDirectory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY), configDirectory);
+
+            File effectDirectory = new File(Elevators.getConfigDirectory(), "effects");
+            if (effectDirectory.isDirectory())
+                watchDirectory(service, effectDirectory.toPath());
+
+            Path typeDirectory = ElevatorConfigService.getTypeDirectory(configDirectory.resolve("config.yml").toFile()).toPath();
+            if (Files.isDirectory(typeDirectory))
+                watchDirectory(service, typeDirectory);
+
+            watchService = service;
+            watchThread = new Thread(() -> watchFiles(service, configDirectory), "Elevators Config Watcher");
+            watchThread.setDaemon(true);
+            watchThread.start();
+        } catch (IOException e) {
+            Elevators.getElevatorsLogger().log(Level.WARNING, "Failed to watch the config files for changes. Please create an issue ticket on my GitHub if one doesn't already exist: https://github.com/keehl254/Elevators/issues. Issue:\n" + ResourceHelper.cleanTrace(e));
+        }
+    }
+
+    private static void watchDirectory(WatchService service, Path directory) throws IOException {
+        WatchKey key = directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        synchronized (ElevatorConfigWatchService.class) {
+            watchedDirectories.put(key, directory);
+        }
+    }
+
+    private static synchronized void stopWatching() {
+        if (pendingReload != null) {
+            pendingReload.cancel();
+            pendingReload = null;
+        }
+
+        if (watchService == null)
+            return;
+
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+        }
+        watchService = null;
+        watchThread = null;
+        watchedDirectories.clear();
+    }
+
+    private static void watchFiles(WatchService service, Path configDirectory) {
+        File configFile = configDirectory.resolve("config.yml").toFile();
+        Path typeDirectory = ElevatorConfigService.getTypeDirectory(configFile).toPath();
+        while (true) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            Path directory;
+            synchronized (ElevatorConfigWatchService.class) {
+                directory = watchedDirectories.get(key);
+            }
+
+            boolean changed = false;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    changed = true;
+                    continue;
+                }
+
+                String fileName = event.context().toString();
+                if (configDirectory.equals(directory)) {
+                    changed |= fileName.equals("config.yml") && ElevatorConfigService.hasConfigFileChanged(configFile);
+                    if (fileName.equals(typeDirectory.getFileName().toString()) && event.kind() == StandardWatchEventKinds.ENTRY_CREATE)
+                        watchTypeDirectory(service, typeDirectory);
+                } else if (typeDirectory.equals(directory))
+                    changed |= fileName.endsWith(".yml") && ElevatorConfigService.hasConfigFileChanged(typeDirectory.resolve(fileName).toFile());
+                else
+                    changed |= !fileName.endsWith(".tmp");
+            }
+
+            if (!key.reset()) {
+                synchronized (ElevatorConfigWatchService.class) {
+                    watchedDirectories.remove(key);
+                }
+            }
+
+            if (changed)
+                scheduleReload();
+        }
+    }
+
+    // The types folder is only created once types are first split into their own files.
+    private static void watchTypeDirectory(WatchService service, Path typeDirectory) {
+        if (!Files.isDirectory(typeDirectory))
+            return;
+
+        try {
+            watchDirectory(service, typeDirectory);
+        } catch (ClosedWatchServiceException ignored) {
+        } catch (IOException e) {
+            Elevators.getElevatorsLogger().log(Level.WARNING, "Failed to watch the elevator type files for changes. Please create an issue ticket on my GitHub if one doesn't already exist: https://github.com/keehl254/Elevators/issues. Issue:\n" + ResourceHelper.cleanTrace(e));
+        }
+    }
+
+    private static synchronized void scheduleReload() {
+        if (watchService == null)
+            return;
+
+        if (pendingReload != null)
+            pendingReload.cancel();
+
+        pendingReload = Elevators.getFoliaLib().getScheduler().runLater(() -> {
+            synchronized (ElevatorConfigWatchService.class) {
+                pendingReload = null;
+            }
+
+            Elevators.log("Detected changes to the config files. Reloading.");
+            Elevators.reloadElevatorsAsync();
+        }, RELOAD_DELAY_TICKS);
+    }
+
+}
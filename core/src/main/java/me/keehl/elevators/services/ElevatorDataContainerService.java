@@ -24,10 +24,15 @@ public class ElevatorDataContainerService {
 
     private static final Map<String, Map.Entry<NamespacedKey, PersistentDataType<?,?>>> keyMap = new HashMap<>();
 
+    // How V2 hid the type key in an elevator's name. Worked out once, as it is looked for every time an item is checked.
+    public static final String HIDDEN_KEY_MARKER = MessageHelper.hideText("CoreEleKey:");
+
     private static boolean initialized = false;
 
     private static NamespacedKey typeKey;
     private static NamespacedKey nameKey;
+    private static NamespacedKey migratedKey;
+    private static NamespacedKey itemRevisionKey;
 
     public static StringArrayPersistentDataType stringArrayPersistentDataType = new StringArrayPersistentDataType();
     public static BooleanPersistentDataType booleanPersistentDataType = new BooleanPersistentDataType();
@@ -40,6 +45,11 @@ public class ElevatorDataContainerService {
         ElevatorDataContainerService.typeKey = getKeyFromKey("elevator-type", PersistentDataType.STRING);
         ElevatorDataContainerService.nameKey = getKeyFromKey("floor-name", PersistentDataType.STRING);
 
+        // Not registered through getKeyFromKey on purpose. The marker describes the block, so it should never be copied onto items.
+        ElevatorDataContainerService.migratedKey = createKey("migrated");
+        // Not registered either. The revision only holds for the item it was written to, and must not carry over to copies.
+        ElevatorDataContainerService.itemRevisionKey = createKey("item-revision");
+
         ElevatorDataContainerService.initialized = true;
         Elevators.popLog(logData -> Elevators.log("Data Container service enabled. "+ ChatColor.YELLOW + "Took " + logData.getElapsedTime() + "ms"));
     }
@@ -97,14 +107,16 @@ public class ElevatorDataContainerService {
 
     public static String getElevatorKey(ItemStack item) {
         ItemMeta meta = item.getItemMeta();
+        if (meta == null)
+            return null;
+        return getElevatorKey(meta);
+    }
 
-        PersistentDataContainer tagContainer;
-        if (meta != null) {
-            tagContainer = meta.getPersistentDataContainer();
+    public static String getElevatorKey(ItemMeta meta) {
+        PersistentDataContainer tagContainer = meta.getPersistentDataContainer();
 
-            if (tagContainer.has(ElevatorDataContainerService.typeKey, PersistentDataType.STRING))
-                return tagContainer.get(ElevatorDataContainerService.typeKey, PersistentDataType.STRING);
-        }
+        if (tagContainer.has(ElevatorDataContainerService.typeKey, PersistentDataType.STRING))
+            return tagContainer.get(ElevatorDataContainerService.typeKey, PersistentDataType.STRING);
         return null;
     }
 
@@ -141,12 +153,44 @@ public class ElevatorDataContainerService {
     public static void setElevatorKey(ItemStack item, ElevatorType type) {
         ItemMeta meta = item.getItemMeta();
         if (meta != null)
-            meta.getPersistentDataContainer().set(ElevatorDataContainerService.typeKey, PersistentDataType.STRING, type.getTypeKey());
+            setElevatorKey(meta, type);
         item.setItemMeta(meta);
     }
 
+    public static void setElevatorKey(ItemMeta meta, ElevatorType type) {
+        meta.getPersistentDataContainer().set(ElevatorDataContainerService.typeKey, PersistentDataType.STRING, type.getTypeKey());
+    }
+
+    /**
+     * @return whether the item was last brought up to date with the current display name and lore of its type.
+     */
+    public static boolean isItemCurrent(ItemMeta meta, ElevatorType type) {
+        Integer revision = meta.getPersistentDataContainer().get(ElevatorDataContainerService.itemRevisionKey, PersistentDataType.INTEGER);
+        return revision != null && revision == type.getItemRevision();
+    }
+
+    public static void setItemCurrent(ItemMeta meta, ElevatorType type) {
+        meta.getPersistentDataContainer().set(ElevatorDataContainerService.itemRevisionKey, PersistentDataType.INTEGER, type.getItemRevision());
+    }
+
+    /**
+     * Removes the revision stamp, so the item is brought up to date the next time it is looked at.
+     */
+    public static void clearItemCurrent(ItemMeta meta) {
+        meta.getPersistentDataContainer().remove(ElevatorDataContainerService.itemRevisionKey);
+    }
+
+    public static boolean isMigrated(ShulkerBox box) {
+        return box.getPersistentDataContainer().has(ElevatorDataContainerService.migratedKey, PersistentDataType.BYTE);
+    }
+
+    public static void setMigrated(ShulkerBox box) {
+        box.getPersistentDataContainer().set(ElevatorDataContainerService.migratedKey, PersistentDataType.BYTE, (byte) 1);
+    }
+
     public static ShulkerBox updateTypeKeyOnElevator(ShulkerBox box, ElevatorType type) {
         box.getPersistentDataContainer().set(ElevatorDataContainerService.typeKey, PersistentDataType.STRING, type.getTypeKey());
+        ElevatorDataContainerService.setMigrated(box);
         box.update();
 
         return box;
@@ -162,25 +206,35 @@ public class ElevatorDataContainerService {
         if (!item.hasItemMeta() || item.getItemMeta() == null)
             return;
         ItemMeta meta = item.getItemMeta();
+        updateItemMetaFromV2(meta, type);
+        item.setItemMeta(meta);
+    }
+
+    /**
+     * Same as {@link #updateItemStackFromV2(ItemStack, ElevatorType)}, but leaves writing the meta back to the caller.
+     */
+    public static void updateItemMetaFromV2(ItemMeta meta, ElevatorType type) {
         if (meta.hasDisplayName()) {
             String name = meta.getDisplayName();
-            int sub = name.indexOf(MessageHelper.hideText("CoreEleKey:"));
+            int sub = name.indexOf(HIDDEN_KEY_MARKER);
             if (sub > -1) {
                 name = name.substring(0, sub);
                 meta.setDisplayName(name);
             }
         }
         meta.getPersistentDataContainer().set(ElevatorDataContainerService.typeKey, PersistentDataType.STRING, type.getTypeKey());
-        item.setItemMeta(meta);
     }
 
     public static String getFloorName(Elevator elevator) {
-        PersistentDataContainer tagContainer = elevator.getShulkerBox().getPersistentDataContainer();
+        String floorName = getStoredFloorName(elevator);
+        if (floorName != null)
+            return floorName;
+        return "Floor #" + ElevatorHelper.getFloorNumberOrCount(elevator, true);
+    }
 
-        if (tagContainer.has(ElevatorDataContainerService.nameKey, PersistentDataType.STRING))
-            return tagContainer.get(ElevatorDataContainerService.nameKey, PersistentDataType.STRING);
-        else
-            return "Floor #" + ElevatorHelper.getFloorNumberOrCount(elevator, true);
+    public static String getStoredFloorName(Elevator elevator) {
+        PersistentDataContainer tagContainer = elevator.getShulkerBox().getPersistentDataContainer();
+        return tagContainer.get(ElevatorDataContainerService.nameKey, PersistentDataType.STRING);
     }
 
     public static void setFloorName(Elevator elevator, String name) {
@@ -190,6 +244,7 @@ public class ElevatorDataContainerService {
         else
             tagContainer.set(ElevatorDataContainerService.nameKey, PersistentDataType.STRING, name);
         elevator.getShulkerBox().update(true);
+        ElevatorIndexService.invalidateShafts(elevator.getShulkerBox().getBlock());
     }
 
 }
@@ -15,6 +15,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ElevatorEffectService {
 
@@ -22,11 +24,16 @@ public class ElevatorEffectService {
 
     private static final Map<String, ElevatorEffect> elevatorEffects = new HashMap<>();
 
+    // Decoding images is the slow part of loading effects, so effects are only decoded again once their file or config changes.
+    private static final Map<String, LoadedImageEffect> loadedImageEffects = new ConcurrentHashMap<>();
+    private static final Map<String, LoadedImageEffect> preparedImageEffects = new ConcurrentHashMap<>();
+
     public static void init() {
         if(ElevatorEffectService.initialized)
             return;
         Elevators.pushAndHoldLog();
 
+        ElevatorConfigService.addConfigPrepareCallback(ElevatorEffectService::prepareEffects);
         ElevatorConfigService.addConfigCallback(ElevatorEffectService::loadEffects);
 
         ElevatorEffectService.initialized = true;
@@ -46,6 +53,10 @@ public class ElevatorEffectService {
         elevatorEffects.put("HELIX", new HelixEffect());
         // elevatorEffects.put("SPARKLES", new SparklesEffect());
 
+        Map<String, LoadedImageEffect> previousImageEffects = new HashMap<>(loadedImageEffects);
+        loadedImageEffects.clear();
+        int decodedEffects = 0;
+
         Map<String, ConfigEffect> effectConfigs = ElevatorConfigService.getEffectConfigs();
         for(String elevatorEffectKey : effectConfigs.keySet()) {
             ConfigEffect effectConfig = effectConfigs.get(elevatorEffectKey);
@@ -57,13 +68,48 @@ public class ElevatorEffectService {
                 continue;
             }
 
-            elevatorEffects.put(elevatorEffectKey, new ImageEffect(elevatorEffectKey, effectFile, effectConfig.scale, effectConfig.duration, effectConfig.useHolo, effectConfig.background));
+            ImageEffectSource source = new ImageEffectSource(effectFile, effectConfig);
+            LoadedImageEffect loadedEffect = previousImageEffects.get(elevatorEffectKey);
+            if(loadedEffect == null || !loadedEffect.source.equals(source))
+                loadedEffect = preparedImageEffects.get(elevatorEffectKey);
+            if(loadedEffect == null || !loadedEffect.source.equals(source)) {
+                loadedEffect = new LoadedImageEffect(source, new ImageEffect(elevatorEffectKey, effectFile, effectConfig.scale, effectConfig.duration, effectConfig.useHolo, effectConfig.background));
+                decodedEffects++;
+            }
+
+            loadedImageEffects.put(elevatorEffectKey, loadedEffect);
+            elevatorEffects.put(elevatorEffectKey, loadedEffect.effect);
         }
 
-        Elevators.popLog(logData -> Elevators.log("Registered " + elevatorEffects.size() + " effects. " + ChatColor.YELLOW + "Took " + logData.getElapsedTime() + "ms"));
+        preparedImageEffects.clear();
+
+        final int decodedCount = decodedEffects;
+        Elevators.popLog(logData -> Elevators.log("Registered " + elevatorEffects.size() + " effects (" + decodedCount + " images decoded). " + ChatColor.YELLOW + "Took " + logData.getElapsedTime() + "ms"));
 
     }
 
+    // Runs off the main thread during a reload, decoding any changed images before the new config is swapped in.
+    private static void prepareEffects(ConfigRoot root) {
+        preparedImageEffects.clear();
+
+        File effectDirectory = new File(Elevators.getConfigDirectory(), "effects");
+        for(Map.Entry<String, ConfigEffect> entry : root.effects.entrySet()) {
+            String elevatorEffectKey = entry.getKey().toUpperCase();
+            ConfigEffect effectConfig = entry.getValue();
+
+            File effectFile = new File(effectDirectory, effectConfig.file);
+            if (!effectFile.exists())
+                continue;
+
+            ImageEffectSource source = new ImageEffectSource(effectFile, effectConfig);
+            LoadedImageEffect loadedEffect = loadedImageEffects.get(elevatorEffectKey);
+            if(loadedEffect != null && loadedEffect.source.equals(source))
+                continue;
+
+            preparedImageEffects.put(elevatorEffectKey, new LoadedImageEffect(source, new ImageEffect(elevatorEffectKey, effectFile, effectConfig.scale, effectConfig.duration, effectConfig.useHolo, effectConfig.background)));
+        }
+    }
+
     public static ElevatorEffect getEffectFromKey(String effectKey) {
         return elevatorEffects.getOrDefault(effectKey.toUpperCase(), null);
     }
@@ -76,4 +122,61 @@ public class ElevatorEffectService {
         return new ArrayList<>(elevatorEffects.values());
     }
 
+    private static class LoadedImageEffect {
+
+        private final ImageEffectSource source;
+        private final ImageEffect effect;
+
+        LoadedImageEffect(ImageEffectSource source, ImageEffect effect) {
+            this.source = source;
+            this.effect = effect;
+        }
+
+    }
+
+    private static class ImageEffectSource {
+
+        private final String path;
+        private final long lastModified;
+        private final long length;
+
+        private final int scale;
+        private final float duration;
+        private final boolean useHolo;
+        private final String background;
+        private final boolean canUseHolograms;
+
+        ImageEffectSource(File file, ConfigEffect effectConfig) {
+            this.path = file.getAbsolutePath();
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+
+            this.scale = effectConfig.scale;
+            this.duration = effectConfig.duration;
+            this.useHolo = effectConfig.useHolo;
+            this.background = effectConfig.background;
+            this.canUseHolograms = ElevatorHologramService.canUseHolograms();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof ImageEffectSource))
+                return false;
+
+            ImageEffectSource other = (ImageEffectSource) o;
+            return this.lastModified == other.lastModified && this.length == other.length && this.scale == other.scale
+                    && Float.compare(this.duration, other.duration) == 0 && this.useHolo == other.useHolo
+                    && this.canUseHolograms == other.canUseHolograms && this.path.equals(other.path)
+                    && Objects.equals(this.background, other.background);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.path, this.lastModified, this.length, this.scale, this.duration, this.useHolo, this.background, this.canUseHolograms);
+        }
+
+    }
+
 }
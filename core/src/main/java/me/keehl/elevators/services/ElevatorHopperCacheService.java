@@ -0,0 +1,95 @@
+package me.keehl.elevators.services;
+
+import me.keehl.elevators.Elevators;
+import org.bukkit.ChatColor;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.inventory.Inventory;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+/*
+    Remembers whether the shulker box at a position is an elevator. Hoppers and droppers move items in and out of the
+    same boxes many times a second, and without this every move would load the box and read its data again.
+
+    Entries are dropped when a block is placed, broken, pushed or blown up at their position, when their chunk unloads,
+    and when the config is reloaded. Changes made without block events, such as through WorldEdit, are picked up by
+    the next reload.
+ */
+public class ElevatorHopperCacheService {
+
+    private static boolean initialized = false;
+
+    // Kept per chunk, so that a chunk unloading only has to drop its own entries.
+    private static final Map<UUID, Map<Long, Map<Integer, Boolean>>> worldCaches = new ConcurrentHashMap<>();
+
+    public static void init() {
+        if (ElevatorHopperCacheService.initialized)
+            return;
+        Elevators.pushAndHoldLog();
+
+        ElevatorConfigService.addConfigCallback(root -> worldCaches.clear());
+
+        ElevatorHopperCacheService.initialized = true;
+        Elevators.popLog(logData -> Elevators.log("Hopper cache service enabled. " + ChatColor.YELLOW + "Took " + logData.getElapsedTime() + "ms"));
+    }
+
+    /**
+     * @param isElevator works out the answer when it is not cached yet. Only called for shulker box inventories.
+     * @return whether the inventory belongs to an elevator.
+     */
+    public static boolean isElevator(Inventory inventory, BooleanSupplier isElevator) {
+        Location location = inventory.getLocation();
+        if (location == null || location.getWorld() == null)
+            return isElevator.getAsBoolean();
+
+        int x = location.getBlockX();
+        int z = location.getBlockZ();
+        Map<Long, Map<Integer, Boolean>> worldCache = worldCaches.computeIfAbsent(location.getWorld().getUID(), uuid -> new ConcurrentHashMap<>());
+        Map<Integer, Boolean> chunkCache = worldCache.computeIfAbsent(getChunkKey(x >> 4, z >> 4), chunkKey -> new ConcurrentHashMap<>());
+        int position = getPosition(x, location.getBlockY(), z);
+
+        Boolean cached = chunkCache.get(position);
+        if (cached != null)
+            return cached;
+
+        boolean result = isElevator.getAsBoolean();
+        chunkCache.put(position, result);
+        return result;
+    }
+
+    public static void invalidate(Block block) {
+        Map<Long, Map<Integer, Boolean>> worldCache = worldCaches.get(block.getWorld().getUID());
+        if (worldCache == null)
+            return;
+
+        Map<Integer, Boolean> chunkCache = worldCache.get(getChunkKey(block.getX() >> 4, block.getZ() >> 4));
+        if (chunkCache != null)
+            chunkCache.remove(getPosition(block.getX(), block.getY(), block.getZ()));
+    }
+
+    public static void dropChunk(Chunk chunk) {
+        Map<Long, Map<Integer, Boolean>> worldCache = worldCaches.get(chunk.getWorld().getUID());
+        if (worldCache != null)
+            worldCache.remove(getChunkKey(chunk.getX(), chunk.getZ()));
+    }
+
+    public static void dropWorld(World world) {
+        worldCaches.remove(world.getUID());
+    }
+
+    private static long getChunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    // The position within the chunk. Y takes the upper 24 bits, which keeps its sign.
+    private static int getPosition(int x, int y, int z) {
+        return (y << 8) | ((x & 15) << 4) | (z & 15);
+    }
+
+}
@@ -0,0 +1,346 @@
+package me.keehl.elevators.services;
+
+import me.keehl.elevators.Elevators;
+import me.keehl.elevators.helpers.ElevatorHelper;
+import me.keehl.elevators.helpers.VersionHelper;
+import me.keehl.elevators.models.Elevator;
+import me.keehl.elevators.models.ElevatorShaft;
+import org.bukkit.ChatColor;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.ShulkerBox;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+    Keeps a sorted list of elevator Y levels for every x/z column of each loaded chunk. This lets the destination
+    search jump straight to the next candidate instead of fetching every block between the origin and the max distance.
+
+    Entries are only ever hints. Anything read out of the index should still be validated against the world, and stale
+    entries found that way are dropped. Elevators are added as they are placed, but those set without a block place
+    event, such as through WorldEdit or other plugins, are missed until the column is indexed again. That happens when a
+    search through the column comes up empty, at most once every few seconds for each column.
+
+    Each column also caches the shafts built from it, which are thrown out whenever a block in the column changes. Every
+    change also moves the column to a new revision, so anything else derived from the column can tell it is out of date.
+ */
+public class ElevatorIndexService {
+
+    private static boolean initialized = false;
+
+    private static final int[] EMPTY_COLUMN = new int[0];
+
+    private static final long REINDEX_INTERVAL_MS = 2000;
+
+    private static final Map<UUID, Map<Long, ChunkIndex>> worldIndexes = new ConcurrentHashMap<>();
+
+    // Shared by every column so that a column indexed again after its chunk reloads never reuses an old revision.
+    private static final AtomicLong revisionCounter = new AtomicLong();
+
+    public static void init() {
+        if (ElevatorIndexService.initialized)
+            return;
+        Elevators.pushAndHoldLog();
+
+        ElevatorConfigService.addConfigCallback(root -> ElevatorListenerService.watchColumnChangesForConfig(root.prefetchDestinations || root.searchCacheSize > 0));
+
+        ElevatorIndexService.initialized = true;
+        Elevators.popLog(logData -> Elevators.log("Index service enabled. " + ChatColor.YELLOW + "Took " + logData.getElapsedTime() + "ms"));
+    }
+
+    public static void indexChunk(Chunk chunk) {
+        ChunkIndex chunkIndex = new ChunkIndex();
+        for (BlockState state : VersionHelper.getShulkerBoxesInChunk(chunk)) {
+            if (!(state instanceof ShulkerBox))
+                continue;
+
+            if (ElevatorHelper.getElevatorType((ShulkerBox) state, false) == null)
+                continue;
+
+            chunkIndex.add(state.getX(), state.getY(), state.getZ());
+        }
+
+        getChunkIndexes(chunk.getWorld()).put(getChunkKey(chunk.getX(), chunk.getZ()), chunkIndex);
+    }
+
+    public static void dropChunk(Chunk chunk) {
+        Map<Long, ChunkIndex> chunkIndexes = worldIndexes.get(chunk.getWorld().getUID());
+        if (chunkIndexes == null)
+            return;
+
+        chunkIndexes.remove(getChunkKey(chunk.getX(), chunk.getZ()));
+    }
+
+    public static void dropWorld(World world) {
+        worldIndexes.remove(world.getUID());
+    }
+
+    public static void addElevator(Block block) {
+        ChunkIndex chunkIndex = getChunkIndex(block.getWorld(), block.getX() >> 4, block.getZ() >> 4, false);
+        if (chunkIndex == null) // The chunk will be fully indexed the first time it is needed.
+            return;
+
+        chunkIndex.add(block.getX(), block.getY(), block.getZ());
+    }
+
+    public static void removeElevator(Block block) {
+        ChunkIndex chunkIndex = getChunkIndex(block.getWorld(), block.getX() >> 4, block.getZ() >> 4, false);
+        if (chunkIndex == null)
+            return;
+
+        chunkIndex.remove(block.getX(), block.getY(), block.getZ());
+    }
+
+    /**
+     * Looks through the chunk's block entities for elevators in the column that the index does not know of. Columns
+     * are only looked through once every {@link #REINDEX_INTERVAL_MS}, since a search that finds nothing, such as one
+     * from the top floor, is likely to be repeated.
+     *
+     * @return whether any elevators were added to the column.
+     */
+    public static boolean reindexColumn(World world, int x, int z) {
+        ChunkIndex chunkIndex = getChunkIndex(world, x >> 4, z >> 4, true);
+        if (!chunkIndex.startReindex(x, z, System.currentTimeMillis()))
+            return false;
+
+        boolean added = false;
+        for (BlockState state : VersionHelper.getShulkerBoxesInChunk(world.getChunkAt(x >> 4, z >> 4))) {
+            if (state.getX() != x || state.getZ() != z || !(state instanceof ShulkerBox))
+                continue;
+            if (Arrays.binarySearch(chunkIndex.getColumn(x, z), state.getY()) >= 0)
+                continue;
+
+            if (ElevatorHelper.getElevatorType((ShulkerBox) state, false) == null)
+                continue;
+
+            chunkIndex.add(x, state.getY(), z);
+            added = true;
+        }
+        return added;
+    }
+
+    /**
+     * Drops the cached shafts of the block's column. Should be called when anything that changes which floors an
+     * elevator can reach is edited, such as its color, name or individual settings.
+     */
+    public static void invalidateShafts(Block block) {
+        ChunkIndex chunkIndex = getChunkIndex(block.getWorld(), block.getX() >> 4, block.getZ() >> 4, false);
+        if (chunkIndex == null)
+            return;
+
+        chunkIndex.clearShafts(block.getX(), block.getZ());
+    }
+
+    /**
+     * Called for any block change that may affect a search through the block's column. Columns without any elevators
+     * in them are ignored. Only called while something relies on column revisions, so revisions only ever move
+     * forward for changes to elevators otherwise.
+     */
+    public static void onBlockChange(Block block) {
+        ChunkIndex chunkIndex = getChunkIndex(block.getWorld(), block.getX() >> 4, block.getZ() >> 4, false);
+        if (chunkIndex == null)
+            return;
+
+        chunkIndex.onBlockChange(block.getX(), block.getZ());
+    }
+
+    /**
+     * @return a number that changes every time a block in the column changes. Chunks that have not been indexed yet are
+     * indexed on the spot.
+     */
+    public static long getColumnRevision(World world, int x, int z) {
+        ChunkIndex chunkIndex = getChunkIndex(world, x >> 4, z >> 4, true);
+        return chunkIndex.getRevision(x, z);
+    }
+
+    /**
+     * @return the shaft that the elevator belongs to. Shafts are built on first use and shared by every elevator in
+     * them until the column changes or the settings are reloaded.
+     */
+    public static ElevatorShaft getElevatorShaft(Elevator elevator) {
+        Location location = elevator.getLocation();
+        int x = location.getBlockX();
+        int y = location.getBlockY();
+        int z = location.getBlockZ();
+
+        ChunkIndex chunkIndex = getChunkIndex(location.getWorld(), x >> 4, z >> 4, true);
+        String shaftKey = ElevatorHelper.getShaftKey(elevator);
+        int generation = ElevatorSettingService.getSettingGeneration();
+
+        ElevatorShaft shaft = chunkIndex.getShaft(x, y, z, shaftKey, generation);
+        if (shaft != null)
+            return shaft;
+
+        // The column may change while the shaft is built, in which case it is used once and not cached.
+        ElevatorListenerService.watchColumnChangesForShafts();
+        long revision = chunkIndex.getRevision(x, z);
+        shaft = ElevatorHelper.buildElevatorShaft(elevator, shaftKey, generation);
+        chunkIndex.addShaft(x, z, shaft, revision);
+        return shaft;
+    }
+
+    /**
+     * @return a sorted array of every Y level in the column that is known to hold an elevator. The array must not be
+     * modified. Chunks that have not been indexed yet are indexed on the spot.
+     */
+    public static int[] getElevatorLevels(World world, int x, int z) {
+        ChunkIndex chunkIndex = getChunkIndex(world, x >> 4, z >> 4, true);
+        return chunkIndex.getColumn(x, z);
+    }
+
+    public static boolean isChunkIndexed(World world, int chunkX, int chunkZ) {
+        return getChunkIndex(world, chunkX, chunkZ, false) != null;
+    }
+
+    private static ChunkIndex getChunkIndex(World world, int chunkX, int chunkZ, boolean createIfMissing) {
+        ChunkIndex chunkIndex = getChunkIndexes(world).get(getChunkKey(chunkX, chunkZ));
+        if (chunkIndex != null || !createIfMissing)
+            return chunkIndex;
+
+        // Chunks loaded before the plugin was enabled never fired a ChunkLoadEvent for us.
+        indexChunk(world.getChunkAt(chunkX, chunkZ));
+        return getChunkIndexes(world).get(getChunkKey(chunkX, chunkZ));
+    }
+
+    private static Map<Long, ChunkIndex> getChunkIndexes(World world) {
+        return worldIndexes.computeIfAbsent(world.getUID(), uuid -> new ConcurrentHashMap<>());
+    }
+
+    private static long getChunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    private static class ChunkIndex {
+
+        private final int[][] columns = new int[256][];
+        private final long[] revisions = new long[256];
+        private final long[] reindexedAt = new long[256];
+
+        @SuppressWarnings("unchecked")
+        private final List<ElevatorShaft>[] shafts = new List[256];
+
+        ChunkIndex() {
+            Arrays.fill(this.revisions, revisionCounter.incrementAndGet());
+            Arrays.fill(this.reindexedAt, System.currentTimeMillis()); // The whole chunk was just looked through.
+        }
+
+        private static int getColumnIndex(int x, int z) {
+            return ((x & 15) << 4) | (z & 15);
+        }
+
+        synchronized int[] getColumn(int x, int z) {
+            int[] column = this.columns[getColumnIndex(x, z)];
+            return column == null ? EMPTY_COLUMN : column;
+        }
+
+        // Columns are copied on write so that callers can keep iterating over an array they already grabbed.
+        synchronized void add(int x, int y, int z) {
+            int columnIndex = getColumnIndex(x, z);
+            int[] column = this.columns[columnIndex];
+            this.clearShafts(columnIndex);
+            if (column == null) {
+                this.columns[columnIndex] = new int[]{y};
+                return;
+            }
+
+            int position = Arrays.binarySearch(column, y);
+            if (position >= 0)
+                return;
+            position = -position - 1;
+
+            int[] newColumn = new int[column.length + 1];
+            System.arraycopy(column, 0, newColumn, 0, position);
+            newColumn[position] = y;
+            System.arraycopy(column, position, newColumn, position + 1, column.length - position);
+            this.columns[columnIndex] = newColumn;
+        }
+
+        synchronized void remove(int x, int y, int z) {
+            int columnIndex = getColumnIndex(x, z);
+            int[] column = this.columns[columnIndex];
+            if (column == null)
+                return;
+
+            int position = Arrays.binarySearch(column, y);
+            if (position < 0)
+                return;
+
+            this.clearShafts(columnIndex);
+            if (column.length == 1) {
+                this.columns[columnIndex] = null;
+                return;
+            }
+
+            int[] newColumn = new int[column.length - 1];
+            System.arraycopy(column, 0, newColumn, 0, position);
+            System.arraycopy(column, position + 1, newColumn, position, column.length - position - 1);
+            this.columns[columnIndex] = newColumn;
+        }
+
+        synchronized boolean startReindex(int x, int z, long now) {
+            int columnIndex = getColumnIndex(x, z);
+            if (now - this.reindexedAt[columnIndex] < REINDEX_INTERVAL_MS)
+                return false;
+
+            this.reindexedAt[columnIndex] = now;
+            return true;
+        }
+
+        synchronized long getRevision(int x, int z) {
+            return this.revisions[getColumnIndex(x, z)];
+        }
+
+        synchronized ElevatorShaft getShaft(int x, int y, int z, String shaftKey, int generation) {
+            List<ElevatorShaft> columnShafts = this.shafts[getColumnIndex(x, z)];
+            if (columnShafts == null)
+                return null;
+
+            for (ElevatorShaft shaft : columnShafts) {
+                if (shaft.getGeneration() == generation && shaft.getShaftKey().equals(shaftKey) && shaft.hasFloorAt(y))
+                    return shaft;
+            }
+            return null;
+        }
+
+        synchronized void addShaft(int x, int z, ElevatorShaft shaft, long revision) {
+            int columnIndex = getColumnIndex(x, z);
+            if (this.revisions[columnIndex] != revision)
+                return;
+
+            List<ElevatorShaft> columnShafts = this.shafts[columnIndex];
+            if (columnShafts == null) {
+                columnShafts = new ArrayList<>();
+                this.shafts[columnIndex] = columnShafts;
+            }
+
+            columnShafts.removeIf(cachedShaft -> cachedShaft.getGeneration() != shaft.getGeneration());
+            columnShafts.add(shaft);
+        }
+
+        synchronized void clearShafts(int x, int z) {
+            this.clearShafts(getColumnIndex(x, z));
+        }
+
+        synchronized void onBlockChange(int x, int z) {
+            int columnIndex = getColumnIndex(x, z);
+            if (this.columns[columnIndex] != null)
+                this.clearShafts(columnIndex);
+        }
+
+        private void clearShafts(int columnIndex) {
+            this.revisions[columnIndex] = revisionCounter.incrementAndGet();
+            this.shafts[columnIndex] = null;
+        }
+
+    }
+
+}
@@ -10,19 +10,21 @@ import me.keehl.elevators.services.listeners.WorldEventExecutor;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.event.*;
-import org.bukkit.event.block.BlockDispenseEvent;
-import org.bukkit.event.block.BlockDropItemEvent;
-import org.bukkit.event.block.BlockPistonExtendEvent;
-import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.block.*;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
 import org.bukkit.event.entity.EntityExplodeEvent;
 import org.bukkit.event.entity.EntityPickupItemEvent;
 import org.bukkit.event.inventory.*;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
 import org.bukkit.event.player.PlayerToggleSneakEvent;
 import org.bukkit.event.world.ChunkLoadEvent;
 import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 import org.bukkit.inventory.ItemStack;
 
 import java.lang.reflect.InvocationTargetException;
@@ -34,6 +36,10 @@ public class ElevatorListenerService {
 
     private static Listener listener;
 
+    private static Listener columnListener;
+    private static boolean watchColumnsForConfig = false;
+    private static volatile boolean watchColumnsForShafts = false;
+
     public static void init() {
         if(ElevatorListenerService.initialized)
             return;
@@ -54,10 +60,21 @@ public class ElevatorListenerService {
         registerEventExecutor(BlockDispenseEvent.class, EventPriority.NORMAL , WorldEventExecutor::onDispenserPlace);
         registerEventExecutor(BlockDropItemEvent.class, EventPriority.LOWEST , WorldEventExecutor::onBlockBreak);
         registerEventExecutor(BlockPlaceEvent.class, EventPriority.HIGHEST , WorldEventExecutor::onBlockPlace);
+        registerEventExecutor(BlockPlaceEvent.class, EventPriority.MONITOR, WorldEventExecutor::onHopperBlockChange, true);
+        registerEventExecutor(BlockBreakEvent.class, EventPriority.MONITOR, WorldEventExecutor::onHopperBlockChange, true);
+        registerEventExecutor(BlockPistonExtendEvent.class, EventPriority.MONITOR, WorldEventExecutor::onHopperBlockChange, true);
+        registerEventExecutor(BlockPistonRetractEvent.class, EventPriority.MONITOR, WorldEventExecutor::onHopperBlockChange, true);
+        registerEventExecutor(BlockExplodeEvent.class, EventPriority.MONITOR, WorldEventExecutor::onHopperBlockChange, true);
+        registerEventExecutor(EntityExplodeEvent.class, EventPriority.MONITOR, WorldEventExecutor::onHopperBlockChange, true);
         registerEventExecutor(ChunkLoadEvent.class, EventPriority.MONITOR, WorldEventExecutor::onChunkLoad);
         registerEventExecutor(ChunkUnloadEvent.class, EventPriority.HIGHEST, WorldEventExecutor::onChunkUnload);
+        registerEventExecutor(WorldLoadEvent.class, EventPriority.MONITOR, WorldEventExecutor::onWorldLoad);
+        registerEventExecutor(WorldUnloadEvent.class, EventPriority.MONITOR, WorldEventExecutor::onWorldUnload, true);
 
         registerEventExecutor(PlayerJoinEvent.class, EventPriority.NORMAL, EntityEventExecutor::onJoin);
+        registerEventExecutor(PlayerQuitEvent.class, EventPriority.MONITOR, EntityEventExecutor::onQuit);
+        registerEventExecutor(PlayerMoveEvent.class, EventPriority.MONITOR, EntityEventExecutor::onBlockMove, true);
+        registerEventExecutor(PlayerTeleportEvent.class, EventPriority.MONITOR, EntityEventExecutor::onTeleport, true);
         registerEventExecutor(PlayerToggleSneakEvent.class, EventPriority.NORMAL , EntityEventExecutor::onSneak);
         registerEventExecutor(EntityPickupItemEvent.class, EventPriority.NORMAL , EntityEventExecutor::onPickup);
         registerEventExecutor(PlayerInteractEvent.class, EventPriority.HIGHEST, EntityEventExecutor::onRightClick);
@@ -95,19 +112,82 @@ public class ElevatorListenerService {
         }
 
         ElevatorListenerService.initialized = true;
+        updateColumnListeners();
         Elevators.popLog(logData -> Elevators.log("Listener service enabled. "+ ChatColor.YELLOW + "Took " + logData.getElapsedTime() + "ms"));
     }
 
-    public static void unInitialize() {
+    public static synchronized void unInitialize() {
         if(ElevatorListenerService.listener != null)
             HandlerList.unregisterAll(ElevatorListenerService.listener);
+        if(ElevatorListenerService.columnListener != null)
+            HandlerList.unregisterAll(ElevatorListenerService.columnListener);
+        ElevatorListenerService.columnListener = null;
+        ElevatorListenerService.watchColumnsForShafts = false;
 
         ElevatorListenerService.initialized = false;
     }
 
-    @SuppressWarnings({"unchecked"})
+    /*
+    Column revisions are only read by destination prefetching, the search cache and the shaft cache. Listening for
+    every block change costs something on busy servers, so the listeners that move revisions forward are only
+    registered while one of them is in use. Prefetching and the search cache are set from the config, while shafts turn
+    the listeners on the first time one is cached and keep them on until the plugin is disabled.
+     */
+    public static synchronized void watchColumnChangesForConfig(boolean watch) {
+        ElevatorListenerService.watchColumnsForConfig = watch;
+        updateColumnListeners();
+    }
+
+    public static void watchColumnChangesForShafts() {
+        if(ElevatorListenerService.watchColumnsForShafts)
+            return;
+
+        synchronized (ElevatorListenerService.class) {
+            ElevatorListenerService.watchColumnsForShafts = true;
+            updateColumnListeners();
+        }
+    }
+
+    private static synchronized void updateColumnListeners() {
+        if(!ElevatorListenerService.initialized)
+            return;
+
+        boolean watch = ElevatorListenerService.watchColumnsForConfig || ElevatorListenerService.watchColumnsForShafts;
+        if(watch == (ElevatorListenerService.columnListener != null))
+            return;
+
+        if(!watch) {
+            HandlerList.unregisterAll(ElevatorListenerService.columnListener);
+            ElevatorListenerService.columnListener = null;
+            return;
+        }
+
+        Listener columnListener = new Listener() {};
+        registerEventExecutor(columnListener, BlockPlaceEvent.class, EventPriority.MONITOR, WorldEventExecutor::onColumnChange, true);
+        registerEventExecutor(columnListener, BlockBreakEvent.class, EventPriority.MONITOR, WorldEventExecutor::onColumnChange, true);
+        registerEventExecutor(columnListener, BlockFromToEvent.class, EventPriority.MONITOR, WorldEventExecutor::onColumnChange, true);
+        registerEventExecutor(columnListener, BlockPistonExtendEvent.class, EventPriority.MONITOR, WorldEventExecutor::onColumnChange, true);
+        registerEventExecutor(columnListener, BlockPistonRetractEvent.class, EventPriority.MONITOR, WorldEventExecutor::onColumnChange, true);
+        registerEventExecutor(columnListener, BlockExplodeEvent.class, EventPriority.MONITOR, WorldEventExecutor::onColumnChange, true);
+        registerEventExecutor(columnListener, EntityExplodeEvent.class, EventPriority.MONITOR, WorldEventExecutor::onColumnChange, true);
+        registerEventExecutor(columnListener, BlockBurnEvent.class, EventPriority.MONITOR, WorldEventExecutor::onColumnChange, true);
+        registerEventExecutor(columnListener, BlockFadeEvent.class, EventPriority.MONITOR, WorldEventExecutor::onColumnChange, true);
+        registerEventExecutor(columnListener, BlockFormEvent.class, EventPriority.MONITOR, WorldEventExecutor::onColumnChange, true);
+        registerEventExecutor(columnListener, BlockSpreadEvent.class, EventPriority.MONITOR, WorldEventExecutor::onColumnChange, true);
+        registerEventExecutor(columnListener, EntityBlockFormEvent.class, EventPriority.MONITOR, WorldEventExecutor::onColumnChange, true);
+        registerEventExecutor(columnListener, BlockGrowEvent.class, EventPriority.MONITOR, WorldEventExecutor::onColumnChange, true);
+        registerEventExecutor(columnListener, LeavesDecayEvent.class, EventPriority.MONITOR, WorldEventExecutor::onColumnChange, true);
+        registerEventExecutor(columnListener, EntityChangeBlockEvent.class, EventPriority.MONITOR, WorldEventExecutor::onColumnChange, true);
+        ElevatorListenerService.columnListener = columnListener;
+    }
+
     public static <T extends Event> void registerEventExecutor(Class<T> clazz, EventPriority priority, ElevatorEventExecutor<T> executor, boolean ignoreCancelled) {
-        Bukkit.getPluginManager().registerEvent(clazz, listener, priority, (listener, event) ->
+        registerEventExecutor(listener, clazz, priority, executor, ignoreCancelled);
+    }
+
+    @SuppressWarnings({"unchecked"})
+    private static <T extends Event> void registerEventExecutor(Listener listener, Class<T> clazz, EventPriority priority, ElevatorEventExecutor<T> executor, boolean ignoreCancelled) {
+        Bukkit.getPluginManager().registerEvent(clazz, listener, priority, (registeredListener, event) ->
         {
             if(clazz.isAssignableFrom(event.getClass()))
                 executor.execute((T) event);
@@ -0,0 +1,366 @@
+package me.keehl.elevators.services;
+
+import com.tcoded.folialib.wrapper.task.WrappedTask;
+import io.papermc.lib.PaperLib;
+import me.keehl.elevators.Elevators;
+import me.keehl.elevators.helpers.ResourceHelper;
+import me.keehl.elevators.helpers.VersionHelper;
+import me.keehl.elevators.services.configs.versions.configv5_2_0.ConfigRoot;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.ShulkerBox;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/*
+    Converts legacy (V1 / V2) elevators to the current format in the background. Loaded chunks are always swept, and
+    every generated chunk can optionally be loaded and swept as well. Once a full sweep of a world finishes, a marker
+    file is written into the world folder and the version service stops checking for legacy elevators in that world.
+
+    If the offline region tool has left a manifest in the world folder, only the chunks it lists are swept.
+ */
+public class ElevatorMigrationService {
+
+    public static final String COMPLETION_FILE_NAME = "elevators-migrated";
+    public static final String MANIFEST_FILE_NAME = "elevators-manifest.csv";
+
+    private static final int MAX_CHUNKS_LOADING = 8;
+    private static final int MAX_FOLIA_CHUNKS_PER_TICK = 4;
+
+    private static boolean initialized = false;
+
+    private static final Set<UUID> migratedWorlds = ConcurrentHashMap.newKeySet();
+    private static final Map<UUID, WorldSweep> sweeps = new HashMap<>();
+    private static final Map<UUID, ImportedManifest> manifests = new HashMap<>();
+
+    private static WrappedTask task;
+    private static long tickBudgetNanos;
+
+    public static void init() {
+        if (ElevatorMigrationService.initialized)
+            return;
+        Elevators.pushAndHoldLog();
+
+        for (World world : Bukkit.getWorlds())
+            loadWorld(world);
+
+        ElevatorConfigService.addConfigCallback(ElevatorMigrationService::onConfigLoad);
+
+        ElevatorMigrationService.initialized = true;
+        Elevators.popLog(logData -> Elevators.log("Migration service enabled. " + ChatColor.YELLOW + "Took " + logData.getElapsedTime() + "ms"));
+    }
+
+    public static void unInitialize() {
+        if (task != null)
+            task.cancel();
+
+        task = null;
+    }
+
+    private static void onConfigLoad(ConfigRoot root) {
+        unInitialize();
+
+        if (!root.migrateLegacyElevators)
+            return;
+
+        tickBudgetNanos = Math.max(1, root.migrationTickBudget) * 1_000_000L;
+
+        // Keep sweeps that are still valid between reloads so progress is not lost.
+        sweeps.values().removeIf(sweep -> sweep.sweepUnloadedChunks != root.migrateUnloadedChunks);
+        for (World world : Bukkit.getWorlds())
+            startSweep(world, root.migrateUnloadedChunks);
+
+        task = Elevators.getFoliaLib().getScheduler().runTimer(ElevatorMigrationService::tick, 20, 1);
+    }
+
+    public static void loadWorld(World world) {
+        if (getCompletionFile(world).exists())
+            migratedWorlds.add(world.getUID());
+        else
+            importManifest(world);
+
+        if (task != null)
+            startSweep(world, ElevatorConfigService.getRootConfig().migrateUnloadedChunks);
+    }
+
+    public static void unloadWorld(World world) {
+        migratedWorlds.remove(world.getUID());
+        sweeps.remove(world.getUID());
+        manifests.remove(world.getUID());
+    }
+
+    /**
+     * @return true if the world has been fully swept, meaning legacy elevator formats no longer need to be checked.
+     */
+    public static boolean isWorldMigrated(World world) {
+        return migratedWorlds.contains(world.getUID());
+    }
+
+    private static void startSweep(World world, boolean sweepUnloadedChunks) {
+        if (isWorldMigrated(world) || sweeps.containsKey(world.getUID()))
+            return;
+
+        WorldSweep sweep = new WorldSweep(world, sweepUnloadedChunks);
+        try {
+            for (Chunk chunk : world.getLoadedChunks())
+                sweep.pendingChunks.add(getChunkKey(chunk.getX(), chunk.getZ()));
+        } catch (UnsupportedOperationException ignored) {
+            // Folia does not let us list loaded chunks off of a region thread. The unloaded sweep will cover them.
+        }
+
+        sweeps.put(world.getUID(), sweep);
+    }
+
+    private static void tick() {
+        long deadline = System.nanoTime() + tickBudgetNanos;
+        int dispatched = 0;
+
+        Iterator<WorldSweep> sweepIterator = sweeps.values().iterator();
+        while (sweepIterator.hasNext() && System.nanoTime() < deadline) {
+            WorldSweep sweep = sweepIterator.next();
+            World world = Bukkit.getWorld(sweep.worldId);
+            if (world == null) {
+                sweepIterator.remove();
+                continue;
+            }
+
+            while (System.nanoTime() < deadline) {
+                Long chunkKey = sweep.pendingChunks.poll();
+                if (chunkKey == null)
+                    break;
+
+                int chunkX = getChunkX(chunkKey);
+                int chunkZ = getChunkZ(chunkKey);
+                if (!world.isChunkLoaded(chunkX, chunkZ))
+                    continue;
+
+                if (Elevators.getFoliaLib().isFolia()) {
+                    // Counted like the chunks being loaded, so the world is not marked as migrated before these have run.
+                    sweep.loadingChunks.incrementAndGet();
+                    Elevators.getFoliaLib().getScheduler().runAtLocation(new Location(world, chunkX << 4, 0, chunkZ << 4), task -> {
+                        try {
+                            sweepChunk(world.getChunkAt(chunkX, chunkZ));
+                        } finally {
+                            sweep.loadingChunks.decrementAndGet();
+                        }
+                    });
+                    if (++dispatched >= MAX_FOLIA_CHUNKS_PER_TICK)
+                        return;
+                } else
+                    sweepChunk(world.getChunkAt(chunkX, chunkZ));
+            }
+
+            if (!sweep.pendingChunks.isEmpty())
+                continue;
+
+            if (sweep.loadNextChunks(world))
+                continue;
+
+            sweepIterator.remove();
+            if (sweep.coversWholeWorld)
+                markWorldMigrated(world);
+        }
+    }
+
+    private static void sweepChunk(Chunk chunk) {
+        for (BlockState state : VersionHelper.getShulkerBoxesInChunk(chunk)) {
+            if (!(state instanceof ShulkerBox))
+                continue;
+
+            ShulkerBox box = (ShulkerBox) state;
+            if (ElevatorDataContainerService.isMigrated(box))
+                continue;
+
+            ElevatorVersionService.getElevatorType(box, true);
+        }
+    }
+
+    private static void markWorldMigrated(World world) {
+        try {
+            Files.write(getCompletionFile(world).toPath(), Elevators.getInstance().getDescription().getVersion().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Elevators.getElevatorsLogger().log(Level.WARNING, "Failed to record elevator migration for world \"" + world.getName() + "\". It will be swept again next startup. Issue:\n" + ResourceHelper.cleanTrace(e));
+        }
+
+        migratedWorlds.add(world.getUID());
+        Elevators.log("Finished migrating legacy elevators in world \"" + world.getName() + "\".");
+    }
+
+    // Manifests are written by the offline region tool. They tell us exactly which chunks still hold legacy elevators.
+    private static void importManifest(World world) {
+        File manifestFile = new File(getDimensionFolder(world), MANIFEST_FILE_NAME);
+        if (!manifestFile.exists())
+            return;
+
+        ImportedManifest manifest = new ImportedManifest();
+        try {
+            for (String line : Files.readAllLines(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+                if (line.startsWith("# complete:")) {
+                    manifest.complete = Boolean.parseBoolean(line.substring(11).trim());
+                    continue;
+                }
+
+                String[] parts = line.split(",");
+                if (parts.length != 6 || !parts[5].equals("LEGACY"))
+                    continue;
+
+                manifest.legacyChunks.add(getChunkKey(Integer.parseInt(parts[0]) >> 4, Integer.parseInt(parts[2]) >> 4));
+            }
+        } catch (IOException | NumberFormatException e) {
+            Elevators.getElevatorsLogger().log(Level.WARNING, "Failed to import elevator manifest for world \"" + world.getName() + "\". Issue:\n" + ResourceHelper.cleanTrace(e));
+            return;
+        }
+
+        manifests.put(world.getUID(), manifest);
+        Elevators.log("Imported elevator manifest for world \"" + world.getName() + "\". " + manifest.legacyChunks.size() + " chunks hold legacy elevators.");
+    }
+
+    private static File getCompletionFile(World world) {
+        return new File(getDimensionFolder(world), COMPLETION_FILE_NAME);
+    }
+
+    // The region tool writes its files next to the region folder of each dimension, as one world folder can hold several.
+    private static File getDimensionFolder(World world) {
+        return getRegionFolder(world).getParentFile();
+    }
+
+    private static File getRegionFolder(World world) {
+        switch (world.getEnvironment()) {
+            case NETHER:
+                return new File(world.getWorldFolder(), "DIM-1" + File.separator + "region");
+            case THE_END:
+                return new File(world.getWorldFolder(), "DIM1" + File.separator + "region");
+            default:
+                return new File(world.getWorldFolder(), "region");
+        }
+    }
+
+    private static long getChunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    private static int getChunkX(long chunkKey) {
+        return (int) (chunkKey >> 32);
+    }
+
+    private static int getChunkZ(long chunkKey) {
+        return (int) chunkKey;
+    }
+
+    private static class ImportedManifest {
+
+        private final Set<Long> legacyChunks = new HashSet<>();
+        private boolean complete = false;
+
+    }
+
+    private static class WorldSweep {
+
+        private final UUID worldId;
+        private final boolean sweepUnloadedChunks;
+        private final boolean coversWholeWorld;
+
+        private final Deque<Long> pendingChunks = new ArrayDeque<>();
+        private final Deque<Long> unloadedChunks = new ArrayDeque<>();
+        private final Deque<File> regionFiles = new ArrayDeque<>();
+        private final AtomicInteger loadingChunks = new AtomicInteger();
+
+        private WorldSweep(World world, boolean sweepUnloadedChunks) {
+            this.worldId = world.getUID();
+            this.sweepUnloadedChunks = sweepUnloadedChunks;
+
+            // A manifest already lists every chunk that needs work, so there is no reason to walk the region files.
+            ImportedManifest manifest = manifests.get(world.getUID());
+            if (manifest != null) {
+                this.unloadedChunks.addAll(manifest.legacyChunks);
+                this.coversWholeWorld = manifest.complete;
+                return;
+            }
+
+            this.coversWholeWorld = sweepUnloadedChunks;
+            if (!sweepUnloadedChunks)
+                return;
+
+            File[] files = getRegionFolder(world).listFiles((dir, name) -> name.startsWith("r.") && name.endsWith(".mca"));
+            if (files != null)
+                this.regionFiles.addAll(Arrays.asList(files));
+        }
+
+        /**
+         * Loads a few more generated chunks, which are swept once they finish loading.
+         * @return false once every generated chunk in the world has been swept.
+         */
+        private boolean loadNextChunks(World world) {
+            while (this.loadingChunks.get() < MAX_CHUNKS_LOADING) {
+                if (this.unloadedChunks.isEmpty() && !this.readNextRegion())
+                    return this.loadingChunks.get() > 0;
+
+                long chunkKey = this.unloadedChunks.poll();
+                int chunkX = getChunkX(chunkKey);
+                int chunkZ = getChunkZ(chunkKey);
+
+                this.loadingChunks.incrementAndGet();
+                PaperLib.getChunkAtAsync(world, chunkX, chunkZ, false).whenComplete((chunk, throwable) -> {
+                    if (chunk == null) {
+                        this.loadingChunks.decrementAndGet();
+                        return;
+                    }
+
+                    Elevators.getFoliaLib().getScheduler().runAtLocation(new Location(world, chunkX << 4, 0, chunkZ << 4), task -> {
+                        try {
+                            sweepChunk(chunk);
+                        } finally {
+                            this.loadingChunks.decrementAndGet();
+                        }
+                    });
+                });
+            }
+            return true;
+        }
+
+        // Queues every chunk present in the next region file. Only the header is read, the chunks themselves are loaded by the server.
+        private boolean readNextRegion() {
+            while (!this.regionFiles.isEmpty()) {
+                File regionFile = this.regionFiles.poll();
+                String[] parts = regionFile.getName().split("\\.");
+                int regionX, regionZ;
+                try {
+                    regionX = Integer.parseInt(parts[1]);
+                    regionZ = Integer.parseInt(parts[2]);
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    continue;
+                }
+
+                try (DataInputStream input = new DataInputStream(new FileInputStream(regionFile))) {
+                    for (int i = 0; i < 1024; i++) {
+                        if (input.readInt() == 0)
+                            continue;
+
+                        this.unloadedChunks.add(getChunkKey((regionX << 5) + (i & 31), (regionZ << 5) + (i >> 5)));
+                    }
+                } catch (IOException e) {
+                    // Empty or truncated region files simply have no more chunks for us.
+                }
+
+                if (!this.unloadedChunks.isEmpty())
+                    return true;
+            }
+            return false;
+        }
+
+    }
+
+}
@@ -0,0 +1,153 @@
+package me.keehl.elevators.services;
+
+import me.keehl.elevators.Elevators;
+import me.keehl.elevators.helpers.ElevatorHelper;
+import me.keehl.elevators.helpers.ShulkerBoxHelper;
+import me.keehl.elevators.models.Elevator;
+import me.keehl.elevators.models.ElevatorEventData;
+import me.keehl.elevators.models.ElevatorType;
+import me.keehl.elevators.services.configs.versions.configv5_2_0.ConfigRoot;
+import org.bukkit.ChatColor;
+import org.bukkit.Location;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.ShulkerBox;
+import org.bukkit.entity.Player;
+import org.bukkit.util.BoundingBox;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    Searches for both destinations of an elevator as soon as a player steps onto it, so that jumping or sneaking only
+    has to pick up a result that is already there. A player keeps their results for as long as they stay on the same
+    elevator, the column does not change, and their hitbox stays the same size.
+ */
+public class ElevatorPrefetchService {
+
+    private static boolean initialized = false;
+
+    private static boolean enabled = false;
+
+    private static final Map<UUID, PrefetchedDestinations> prefetchedDestinations = new ConcurrentHashMap<>();
+
+    public static void init() {
+        if (ElevatorPrefetchService.initialized)
+            return;
+        Elevators.pushAndHoldLog();
+
+        ElevatorConfigService.addConfigCallback(ElevatorPrefetchService::onConfigLoad);
+
+        ElevatorPrefetchService.initialized = true;
+        Elevators.popLog(logData -> Elevators.log("Prefetch service enabled. " + ChatColor.YELLOW + "Took " + logData.getElapsedTime() + "ms"));
+    }
+
+    private static void onConfigLoad(ConfigRoot root) {
+        enabled = root.prefetchDestinations;
+        prefetchedDestinations.clear();
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void onPlayerMove(Player player, Location to) {
+        if (!enabled || to == null || to.getWorld() == null)
+            return;
+
+        Block block = to.getBlock().getRelative(BlockFace.DOWN);
+        PrefetchedDestinations current = prefetchedDestinations.get(player.getUniqueId());
+        // Moving within the block changes the hitbox class, so only start over once the last searches have finished.
+        if (current != null && current.isAt(block) && (current.isValid(player) || !current.isDone()))
+            return;
+
+        prefetchedDestinations.remove(player.getUniqueId());
+        if (ElevatorConfigService.isWorldDisabled(block.getWorld()))
+            return;
+
+        ShulkerBox box = ShulkerBoxHelper.getShulkerBox(block);
+        if (box == null)
+            return;
+
+        ElevatorType elevatorType = ElevatorHelper.getElevatorType(box, false);
+        if (elevatorType == null)
+            return;
+
+        Elevator elevator = new Elevator(box, elevatorType);
+        long revision = ElevatorIndexService.getColumnRevision(block.getWorld(), block.getX(), block.getZ());
+        CompletableFuture<ElevatorEventData> up = ElevatorHelper.findDestinationAsync(player, elevator, (byte) 1);
+        CompletableFuture<ElevatorEventData> down = ElevatorHelper.findDestinationAsync(player, elevator, (byte) -1);
+
+        prefetchedDestinations.put(player.getUniqueId(), new PrefetchedDestinations(block, revision, player.getBoundingBox(), up, down));
+    }
+
+    /**
+     * @return the prefetched search for the elevator the player is standing on, or null if there is no usable one.
+     */
+    public static CompletableFuture<ElevatorEventData> getPrefetchedDestination(Player player, Elevator elevator, byte direction) {
+        if (!enabled)
+            return null;
+
+        PrefetchedDestinations prefetched = prefetchedDestinations.get(player.getUniqueId());
+        if (prefetched == null || !prefetched.isAt(elevator.getLocation().getBlock()) || !prefetched.isValid(player))
+            return null;
+
+        return direction > 0 ? prefetched.up : prefetched.down;
+    }
+
+    public static void forgetPlayer(Player player) {
+        prefetchedDestinations.remove(player.getUniqueId());
+    }
+
+    private static class PrefetchedDestinations {
+
+        private final UUID worldId;
+        private final int x;
+        private final int y;
+        private final int z;
+
+        private final long revision;
+        private final int generation;
+        private final long hitBoxClass;
+
+        private final CompletableFuture<ElevatorEventData> up;
+        private final CompletableFuture<ElevatorEventData> down;
+
+        PrefetchedDestinations(Block block, long revision, BoundingBox boundingBox, CompletableFuture<ElevatorEventData> up, CompletableFuture<ElevatorEventData> down) {
+            this.worldId = block.getWorld().getUID();
+            this.x = block.getX();
+            this.y = block.getY();
+            this.z = block.getZ();
+
+            this.revision = revision;
+            this.generation = ElevatorSettingService.getSettingGeneration();
+            this.hitBoxClass = ElevatorSearchCacheService.getHitBoxClass(boundingBox);
+
+            this.up = up;
+            this.down = down;
+        }
+
+        boolean isAt(Block block) {
+            return block.getX() == this.x && block.getY() == this.y && block.getZ() == this.z && block.getWorld().getUID().equals(this.worldId);
+        }
+
+        boolean isDone() {
+            return this.up.isDone() && this.down.isDone();
+        }
+
+        boolean isValid(Player player) {
+            if (this.generation != ElevatorSettingService.getSettingGeneration())
+                return false;
+
+            // The obstruction check depends on where the hitbox sits within the block, and not just on its size.
+            if (ElevatorSearchCacheService.getHitBoxClass(player.getBoundingBox()) != this.hitBoxClass)
+                return false;
+
+            return ElevatorIndexService.getColumnRevision(player.getWorld(), this.x, this.z) == this.revision;
+        }
+
+    }
+
+}
@@ -14,6 +14,7 @@ import org.bukkit.inventory.ShapedRecipe;
 import org.bukkit.permissions.Permissible;
 
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class ElevatorRecipeService {
@@ -22,6 +23,9 @@ public class ElevatorRecipeService {
 
     private static final Map<ElevatorType, ElevatorRecipeGroup> elevatorRecipeGroupMap = new HashMap<>();
 
+    private static final Map<NamespacedKey, ShapedRecipe> registeredRecipes = new HashMap<>();
+    private static boolean registeredAnyRecipes = false;
+
     public static void init() {
         if(ElevatorRecipeService.initialized)
             return;
@@ -33,55 +37,106 @@ public class ElevatorRecipeService {
         Elevators.popLog(logData -> Elevators.log("Recipe service enabled. "+ ChatColor.YELLOW + "Took " + logData.getElapsedTime() + "ms"));
     }
 
+    /*
+        Recipes are rebuilt in memory and compared with the ones already registered, so only recipes that were added,
+        changed or removed touch the server's recipe list and the recipe books of online players. Walking the server's
+        recipes and updating every player's recipe book is what makes a refresh expensive on a busy server.
+     */
     public static void refreshRecipes() {
 
         Elevators.pushAndHoldLog();
 
         ConfigRoot root = ElevatorConfigService.getRootConfig();
 
-        Iterator<Recipe> it = Bukkit.getServer().recipeIterator();
+        ElevatorRecipeService.elevatorRecipeGroupMap.clear();
+
+        Map<NamespacedKey, ShapedRecipe> newRecipes = new LinkedHashMap<>();
+        int recipes = 0;
+        for(ElevatorType elevatorType : root.elevators.values()) {
+            for(ElevatorRecipeGroup recipeGroup : elevatorType.getRecipeGroups()) {
+                recipeGroup.load(elevatorType);
+                ElevatorRecipeService.elevatorRecipeGroupMap.put(elevatorType, recipeGroup);
+                for(ShapedRecipe recipe : recipeGroup.getRecipes())
+                    newRecipes.put(recipe.getKey(), recipe);
+                recipes++;
+            }
+        }
+
+        List<NamespacedKey> removedKeys = new ArrayList<>();
+        Set<NamespacedKey> changedKeys = new HashSet<>();
+        if(ElevatorRecipeService.registeredAnyRecipes) {
+            for(ShapedRecipe oldRecipe : ElevatorRecipeService.registeredRecipes.values()) {
+                ShapedRecipe newRecipe = newRecipes.get(oldRecipe.getKey());
+                if(newRecipe == null)
+                    removedKeys.add(oldRecipe.getKey());
+                else if(!isSameRecipe(oldRecipe, newRecipe))
+                    changedKeys.add(oldRecipe.getKey());
+            }
+
+            Set<NamespacedKey> keysToUnregister = new HashSet<>(changedKeys);
+            keysToUnregister.addAll(removedKeys);
+            unregisterRecipes(recipe -> keysToUnregister.contains(recipe.getKey()));
+        } else {
+            // Nothing is known about the recipes registered before this point, such as those left behind by a plugin reload.
+            removedKeys.addAll(unregisterRecipes(recipe -> recipe.getKey().getNamespace().equalsIgnoreCase("elevators")));
+            if(!removedKeys.isEmpty())
+                Elevators.log("Unregistered old recipes");
+        }
+
+        List<NamespacedKey> addedKeys = new ArrayList<>();
+        for(ShapedRecipe recipe : newRecipes.values()) {
+            boolean isNew = !ElevatorRecipeService.registeredRecipes.containsKey(recipe.getKey());
+            if(!isNew && !changedKeys.contains(recipe.getKey()))
+                continue;
+
+            Bukkit.addRecipe(recipe);
+            if(isNew)
+                addedKeys.add(recipe.getKey());
+        }
+
+        ElevatorRecipeService.registeredRecipes.clear();
+        ElevatorRecipeService.registeredRecipes.putAll(newRecipes);
+        ElevatorRecipeService.registeredAnyRecipes = true;
 
+        removedKeys.removeAll(newRecipes.keySet());
+        if(!removedKeys.isEmpty())
+            Bukkit.getOnlinePlayers().forEach(i -> i.undiscoverRecipes(removedKeys));
+        if(!addedKeys.isEmpty())
+            Bukkit.getOnlinePlayers().forEach(i -> i.discoverRecipes(addedKeys));
+
+        final int recipeCount = recipes;
+        final int addedCount = addedKeys.size();
+        final int changedCount = changedKeys.size();
+        final int removedCount = removedKeys.size();
+        Elevators.popLog(logData -> Elevators.log("Registered " + recipeCount + " recipe groups (" + addedCount + " recipes added, " + changedCount + " changed, " + removedCount + " removed). "+ ChatColor.YELLOW + "Took " + logData.getElapsedTime() + "ms"));
+    }
+
+    private static List<NamespacedKey> unregisterRecipes(Predicate<ShapedRecipe> shouldRemove) {
         List<ShapedRecipe> recipesToUnlearn = new ArrayList<>();
 
-        boolean removedRecipes = false;
+        Iterator<Recipe> it = Bukkit.getServer().recipeIterator();
         while (it.hasNext()) {
             Recipe recipe = it.next();
             if(!(recipe instanceof ShapedRecipe))
                 continue;
             ShapedRecipe shapedRecipe = (ShapedRecipe) recipe;
-            if(shapedRecipe.getKey().getNamespace().equalsIgnoreCase("elevators")) {
+            if(shouldRemove.test(shapedRecipe)) {
                 it.remove();
                 recipesToUnlearn.add(shapedRecipe);
-                removedRecipes = true;
             }
         }
 
-        ElevatorRecipeService.elevatorRecipeGroupMap.clear();
-
         if(VersionHelper.doesVersionSupportRemoveRecipe())
             recipesToUnlearn.forEach(VersionHelper::removeRecipe);
 
-        Bukkit.getOnlinePlayers().forEach(i -> i.undiscoverRecipes(recipesToUnlearn.stream().map(ShapedRecipe::getKey).collect(Collectors.toList())));
-
-        if(removedRecipes)
-            Elevators.log("Unregistered old recipes");
-
-        List<NamespacedKey> recipeKeys = new ArrayList<>();
-
-        int recipes = 0;
-        for(ElevatorType elevatorType : root.elevators.values()) {
-            for(ElevatorRecipeGroup recipeGroup : elevatorType.getRecipeGroups()) {
-                recipeGroup.load(elevatorType);
-                ElevatorRecipeService.elevatorRecipeGroupMap.put(elevatorType, recipeGroup);
-                recipeKeys.addAll(recipeGroup.getNameSpacedKeys());
-                recipes++;
-            }
-        }
-
-        Bukkit.getOnlinePlayers().forEach(i -> i.discoverRecipes(recipeKeys));
+        return recipesToUnlearn.stream().map(ShapedRecipe::getKey).collect(Collectors.toList());
+    }
 
-        final int recipeCount = recipes;
-        Elevators.popLog(logData -> Elevators.log("Registered " + recipeCount + " recipe groups. "+ ChatColor.YELLOW + "Took " + logData.getElapsedTime() + "ms"));
+    private static boolean isSameRecipe(ShapedRecipe oldRecipe, ShapedRecipe newRecipe) {
+        return oldRecipe.getResult().equals(newRecipe.getResult())
+                && Arrays.equals(oldRecipe.getShape(), newRecipe.getShape())
+                && oldRecipe.getIngredientMap().equals(newRecipe.getIngredientMap())
+                && oldRecipe.getChoiceMap().equals(newRecipe.getChoiceMap());
     }
 
     public static void discoverRecipesForPlayer(Player player) {
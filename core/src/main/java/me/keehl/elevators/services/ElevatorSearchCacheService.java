@@ -0,0 +1,210 @@
+package me.keehl.elevators.services;
+
+import me.keehl.elevators.Elevators;
+import me.keehl.elevators.models.Elevator;
+import me.keehl.elevators.models.ElevatorEventData;
+import me.keehl.elevators.services.configs.versions.configv5_2_0.ConfigRoot;
+import org.bukkit.ChatColor;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.util.BoundingBox;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+    Remembers the results of recent destination searches. Busy elevators are used over and over with the same inputs,
+    so their results only need to be worked out again once something in their column changes.
+
+    Results depend on the searching player's hitbox, since it decides whether a destination is obstructed. Hitboxes are
+    grouped by their size and their position within the block, rounded to a sixteenth of a block.
+ */
+public class ElevatorSearchCacheService {
+
+    private static boolean initialized = false;
+
+    private static int maxSize = 0;
+
+    private static final Map<SearchKey, CachedSearch> cachedSearches = new LinkedHashMap<>(16, 0.75F, true);
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    public static void init() {
+        if (ElevatorSearchCacheService.initialized)
+            return;
+        Elevators.pushAndHoldLog();
+
+        ElevatorConfigService.addConfigCallback(ElevatorSearchCacheService::onConfigLoad);
+
+        ElevatorSearchCacheService.initialized = true;
+        Elevators.popLog(logData -> Elevators.log("Search cache service enabled. " + ChatColor.YELLOW + "Took " + logData.getElapsedTime() + "ms"));
+    }
+
+    private static void onConfigLoad(ConfigRoot root) {
+        maxSize = Math.max(0, root.searchCacheSize);
+        invalidateAll();
+    }
+
+    public static boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * @return the cached search, or null if there is no usable one. A cached search may itself hold no destination.
+     */
+    public static CachedSearch getCachedSearch(Player player, Elevator elevator, byte direction) {
+        if (!isEnabled())
+            return null;
+
+        SearchKey key = new SearchKey(player, elevator, direction);
+        CachedSearch cachedSearch;
+        synchronized (cachedSearches) {
+            cachedSearch = cachedSearches.get(key);
+        }
+
+        if (cachedSearch != null && !cachedSearch.isValid(key)) {
+            synchronized (cachedSearches) {
+                cachedSearches.remove(key, cachedSearch);
+            }
+            cachedSearch = null;
+        }
+
+        if (cachedSearch == null)
+            misses.incrementAndGet();
+        else
+            hits.incrementAndGet();
+        return cachedSearch;
+    }
+
+    /**
+     * Stores the result of a search. The column revision must be taken before the search started, so that a change
+     * made during the search leaves the result already out of date.
+     */
+    public static void cacheSearch(Player player, Elevator elevator, byte direction, long revision, ElevatorEventData result) {
+        if (!isEnabled())
+            return;
+
+        SearchKey key = new SearchKey(player, elevator, direction);
+        CachedSearch cachedSearch = new CachedSearch(result, revision, ElevatorSettingService.getSettingGeneration());
+        synchronized (cachedSearches) {
+            cachedSearches.put(key, cachedSearch);
+
+            while (cachedSearches.size() > maxSize)
+                cachedSearches.remove(cachedSearches.keySet().iterator().next());
+        }
+    }
+
+    public static long getColumnRevision(Elevator elevator) {
+        Location location = elevator.getLocation();
+        return ElevatorIndexService.getColumnRevision(location.getWorld(), location.getBlockX(), location.getBlockZ());
+    }
+
+    public static void invalidateAll() {
+        synchronized (cachedSearches) {
+            cachedSearches.clear();
+        }
+    }
+
+    public static long getHits() {
+        return hits.get();
+    }
+
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    public static int getSize() {
+        synchronized (cachedSearches) {
+            return cachedSearches.size();
+        }
+    }
+
+    /**
+     * @return the group the hitbox falls into. Hitboxes in the same group get the same result from every destination
+     * search, as they have the same size and the same position within the block, rounded to a sixteenth of a block.
+     */
+    public static long getHitBoxClass(BoundingBox box) {
+        // Same rounding of the position within the block as ElevatorObstructionService.getHitBoxAddition.
+        long hitBoxClass = toSixteenths(box.getWidthX());
+        hitBoxClass = (hitBoxClass << 12) | toSixteenths(box.getWidthZ());
+        hitBoxClass = (hitBoxClass << 12) | toSixteenths(box.getHeight());
+        hitBoxClass = (hitBoxClass << 5) | toSixteenths(getBlockOffset(box.getMinX()));
+        hitBoxClass = (hitBoxClass << 5) | toSixteenths(getBlockOffset(box.getMinY()));
+        return (hitBoxClass << 5) | toSixteenths(getBlockOffset(box.getMinZ()));
+    }
+
+    private static double getBlockOffset(double value) {
+        return value < 0 ? 1.0 + value % 1 : value % 1;
+    }
+
+    private static long toSixteenths(double value) {
+        return Math.round(value * 16) & 0xFFF;
+    }
+
+    public static class CachedSearch {
+
+        private final ElevatorEventData result;
+        private final long revision;
+        private final int generation;
+
+        private CachedSearch(ElevatorEventData result, long revision, int generation) {
+            this.result = result;
+            this.revision = revision;
+            this.generation = generation;
+        }
+
+        public ElevatorEventData getResult() {
+            return this.result;
+        }
+
+        private boolean isValid(SearchKey key) {
+            if (this.generation != ElevatorSettingService.getSettingGeneration())
+                return false;
+            return this.revision == ElevatorIndexService.getColumnRevision(key.location.getWorld(), key.location.getBlockX(), key.location.getBlockZ());
+        }
+
+    }
+
+    private static class SearchKey {
+
+        private final UUID worldId;
+        private final long position;
+        private final byte direction;
+        private final long hitBoxClass;
+
+        private final Location location;
+
+        SearchKey(Player player, Elevator elevator, byte direction) {
+            this.location = elevator.getLocation();
+            this.worldId = Objects.requireNonNull(this.location.getWorld()).getUID();
+            this.position = ((long) (this.location.getBlockX() & 0x3FFFFFF) << 38) | ((long) (this.location.getBlockZ() & 0x3FFFFFF) << 12) | (this.location.getBlockY() & 0xFFF);
+            this.direction = (byte) (direction > 0 ? 1 : -1);
+            this.hitBoxClass = getHitBoxClass(player.getBoundingBox());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof SearchKey))
+                return false;
+
+            SearchKey other = (SearchKey) o;
+            return this.position == other.position && this.direction == other.direction && this.hitBoxClass == other.hitBoxClass && this.worldId.equals(other.worldId);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = this.worldId.hashCode();
+            result = 31 * result + Long.hashCode(this.position);
+            result = 31 * result + this.direction;
+            return 31 * result + Long.hashCode(this.hitBoxClass);
+        }
+
+    }
+
+}
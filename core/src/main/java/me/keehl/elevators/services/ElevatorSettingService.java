@@ -5,6 +5,7 @@ import me.keehl.elevators.events.ElevatorRegisterSettingsEvent;
 import me.keehl.elevators.models.Elevator;
 import me.keehl.elevators.models.ElevatorSetting;
 import me.keehl.elevators.models.ElevatorType;
+import me.keehl.elevators.models.SettingHandle;
 import me.keehl.elevators.models.settings.*;
 import me.keehl.elevators.util.InternalElevatorSettingType;
 import org.bukkit.Bukkit;
@@ -18,6 +19,12 @@ public class ElevatorSettingService {
     private static boolean allowSelfRegister = false;
 
     private static final List<ElevatorSetting<?>> elevatorSettings = new ArrayList<>();
+    private static final Map<String, SettingHandle<?>> settingHandles = new HashMap<>();
+
+    // Indexed by InternalElevatorSettingType ordinal, so internal reads are a single array access.
+    private static final SettingHandle<?>[] internalSettingHandles = new SettingHandle<?>[InternalElevatorSettingType.values().length];
+
+    private static volatile int settingGeneration = 0;
 
     public static void init() {
         if (ElevatorSettingService.initialized)
@@ -25,6 +32,7 @@ public class ElevatorSettingService {
         Elevators.pushAndHoldLog();
 
         ElevatorSettingService.registerDefaultSettings();
+        ElevatorConfigService.addConfigCallback(root -> bumpSettingGeneration());
 
         ElevatorSettingService.initialized = true;
         Elevators.popLog(logData -> Elevators.log("Setting service enabled. " + ChatColor.YELLOW + "Took " + logData.getElapsedTime() + "ms"));
@@ -73,7 +81,35 @@ public class ElevatorSettingService {
             throw new RuntimeException(message);
         }
 
+        SettingHandle<?> handle = createHandle(setting, elevatorSettings.size());
         elevatorSettings.add(setting);
+        settingHandles.put(setting.getSettingName().toLowerCase(Locale.ROOT), handle);
+        for (InternalElevatorSettingType settingType : InternalElevatorSettingType.values()) {
+            if (settingType.getSettingName().equalsIgnoreCase(setting.getSettingName()))
+                internalSettingHandles[settingType.ordinal()] = handle;
+        }
+
+        bumpSettingGeneration();
+    }
+
+    private static <T> SettingHandle<T> createHandle(ElevatorSetting<T> setting, int slot) {
+        return new SettingHandle<>(setting, slot);
+    }
+
+    /**
+     * @return a counter that changes every time an elevator type setting changes. Anything cached from setting values
+     * should be rebuilt once this no longer matches.
+     */
+    public static int getSettingGeneration() {
+        return settingGeneration;
+    }
+
+    public static synchronized void bumpSettingGeneration() {
+        settingGeneration++;
+    }
+
+    public static int getSettingCount() {
+        return elevatorSettings.size();
     }
 
     public static List<ElevatorSetting<?>> getElevatorSettings() {
@@ -81,7 +117,25 @@ public class ElevatorSettingService {
     }
 
     public static Optional<ElevatorSetting<?>> getElevatorSetting(String settingsKey) {
-        return elevatorSettings.stream().filter(s -> s.getSettingName().equalsIgnoreCase(settingsKey)).findFirst();
+        SettingHandle<?> handle = settingHandles.get(settingsKey.toLowerCase(Locale.ROOT));
+        return handle == null ? Optional.empty() : Optional.of(handle.getSetting());
+    }
+
+    /**
+     * @return the handle of a registered setting, or null if the setting was never registered.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> SettingHandle<T> getSettingHandle(ElevatorSetting<T> setting) {
+        SettingHandle<?> handle = settingHandles.get(setting.getSettingName().toLowerCase(Locale.ROOT));
+        return handle != null && handle.getSetting() == setting ? (SettingHandle<T>) handle : null;
+    }
+
+    /**
+     * @return the handle of one of the default settings. The type must match the value type of the setting.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> SettingHandle<T> getSettingHandle(InternalElevatorSettingType settingType) {
+        return (SettingHandle<T>) internalSettingHandles[settingType.ordinal()];
     }
 
     public static <T> T getElevatorSettingValue(Elevator elevator, String settingsKey) {
@@ -109,11 +163,13 @@ public class ElevatorSettingService {
     }
 
     public static <T> T getElevatorSettingValue(Elevator elevator, InternalElevatorSettingType settingsKey) {
-        return getElevatorSettingValue(elevator, settingsKey.getSettingName());
+        SettingHandle<T> handle = getSettingHandle(settingsKey);
+        return handle == null ? null : handle.getValue(elevator);
     }
 
     public static <T> T getElevatorSettingValue(ElevatorType elevatorType, InternalElevatorSettingType settingsKey) {
-        return getElevatorSettingValue(elevatorType, settingsKey.getSettingName());
+        SettingHandle<T> handle = getSettingHandle(settingsKey);
+        return handle == null ? null : handle.getValue(elevatorType);
     }
 
 
@@ -13,6 +13,8 @@ public class ElevatorTypeService {
 
     private static boolean initialized = false;
 
+    private static final Set<String> loadedElevatorKeys = new HashSet<>();
+
     public static void init() {
         if(ElevatorTypeService.initialized)
             return;
@@ -49,13 +51,25 @@ public class ElevatorTypeService {
 
         defaultElevatorType = elevatorTypes.get("DEFAULT");
 
+        // Types read from the config already parsed their actions while loading. Parsing them again would also throw
+        // away any action edits that are still waiting to be saved.
+        int parsedTypes = 0;
         for(String elevatorKey : elevatorTypes.keySet()) {
             ElevatorType elevatorType = elevatorTypes.get(elevatorKey);
             elevatorType.setKey(elevatorKey);
-            elevatorType.onLoad();
+            if(!elevatorType.isLoaded()) {
+                elevatorType.onLoad();
+                parsedTypes++;
+            }
         }
 
-        Elevators.popLog(logData -> Elevators.log("Registered and loaded " + elevatorTypes.size() + " elevator types. "+ ChatColor.YELLOW + "Took " + logData.getElapsedTime() + "ms"));
+        int addedTypes = (int) elevatorTypes.keySet().stream().filter(i -> !loadedElevatorKeys.contains(i)).count();
+        int removedTypes = (int) loadedElevatorKeys.stream().filter(i -> !elevatorTypes.containsKey(i)).count();
+        loadedElevatorKeys.clear();
+        loadedElevatorKeys.addAll(elevatorTypes.keySet());
+
+        final int parsedCount = parsedTypes;
+        Elevators.popLog(logData -> Elevators.log("Registered and loaded " + elevatorTypes.size() + " elevator types (" + addedTypes + " added, " + removedTypes + " removed, " + parsedCount + " parsed). "+ ChatColor.YELLOW + "Took " + logData.getElapsedTime() + "ms"));
     }
 
     public static ElevatorType getElevatorType(String name) {
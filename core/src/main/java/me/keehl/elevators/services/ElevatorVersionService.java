@@ -11,16 +11,24 @@ import org.bukkit.ChatColor;
 import org.bukkit.block.Block;
 import org.bukkit.block.ShulkerBox;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 public class ElevatorVersionService {
 
     private static final List<ElevatorVersion> versions = new ArrayList<>();
+    private static final List<ElevatorVersion> currentVersions = new ArrayList<>();
+
+    // The versions items are checked against. Legacy versions are left out once the config says they are no longer needed.
+    private static volatile List<ElevatorVersion> itemVersions = versions;
+
+    private static final AtomicInteger migratedBlocks = new AtomicInteger();
 
     private static boolean initialized = false;
 
@@ -33,13 +41,34 @@ public class ElevatorVersionService {
         versions.add(new ElevatorsV2());
         versions.add(new ElevatorsV1());
 
+        currentVersions.add(versions.get(0));
+
+        ElevatorConfigService.addConfigCallback(root -> itemVersions = root.convertLegacyItems ? versions : currentVersions);
+
         ElevatorVersionService.initialized = true;
         Elevators.popLog(logData -> Elevators.log("Version service enabled. "+ ChatColor.YELLOW + "Took " + logData.getElapsedTime() + "ms"));
     }
 
+    /**
+     * Works out the elevator type of an item. Anything that is not a shulker box with meta is turned away before the
+     * meta is read, and the meta is then read only once and shared between the versions.
+     */
     public static ElevatorType getElevatorType(ItemStack item) {
-        for (ElevatorVersion version : versions) {
-            ElevatorType elevatorType = version.getElevatorType(item);
+        if (item == null || ItemStackHelper.isNotShulkerBox(item.getType()) || !item.hasItemMeta())
+            return null;
+
+        ItemMeta meta = item.getItemMeta();
+        if (meta == null)
+            return null;
+        return getElevatorType(item, meta);
+    }
+
+    /**
+     * @param meta the meta of the item, for callers that need it themselves. The item must be a shulker box.
+     */
+    public static ElevatorType getElevatorType(ItemStack item, ItemMeta meta) {
+        for (ElevatorVersion version : itemVersions) {
+            ElevatorType elevatorType = version.getElevatorType(item, meta);
             if (elevatorType != null)
                 return elevatorType;
         }
@@ -47,6 +76,16 @@ public class ElevatorVersionService {
     }
 
     public static ElevatorType getElevatorType(ShulkerBox box, boolean updateBlock) {
+        // Migrated boxes only ever need the current data key, and never need to be written to again.
+        if (ElevatorDataContainerService.isMigrated(box)) {
+            ElevatorType elevatorType = versions.get(0).getElevatorType(box);
+            if (elevatorType != null)
+                return elevatorType;
+        }
+
+        // Worlds that have been fully migrated cannot contain legacy elevators.
+        List<ElevatorVersion> versions = ElevatorMigrationService.isWorldMigrated(box.getWorld()) ? currentVersions : ElevatorVersionService.versions;
+
         Map.Entry<ElevatorType, Function<ShulkerBox, ShulkerBox>> result = new AbstractMap.SimpleEntry<>(null, null);
         for (ElevatorVersion version : versions) {
             ElevatorType elevatorType = version.getElevatorType(box);
@@ -59,13 +98,22 @@ public class ElevatorVersionService {
 
         if (updateBlock) {
             ShulkerBox newBox = result.getValue().apply(box);
+            ElevatorDataContainerService.setMigrated(newBox); // Written alongside the cleared contents.
             newBox = ShulkerBoxHelper.clearContents(newBox);
             if (ElevatorConfigService.getRootConfig().forceFacingUpwards)
                 ShulkerBoxHelper.setFacingUp(newBox);
+            migratedBlocks.incrementAndGet();
         }
         return result.getKey();
     }
 
+    /**
+     * @return the number of elevator blocks that have been converted, cleared or re-faced since the plugin was enabled.
+     */
+    public static int getMigratedBlockCount() {
+        return migratedBlocks.get();
+    }
+
     public static ElevatorType getElevatorType(Block block) {
         if (ItemStackHelper.isNotShulkerBox(block.getType()))
             return null;
@@ -74,7 +122,17 @@ public class ElevatorVersionService {
 
     public abstract static class ElevatorVersion {
 
-        public abstract ElevatorType getElevatorType(ItemStack item);
+        public ElevatorType getElevatorType(ItemStack item) {
+            if (ItemStackHelper.isNotShulkerBox(item.getType()) || !item.hasItemMeta())
+                return null;
+            return this.getElevatorType(item, item.getItemMeta());
+        }
+
+        /**
+         * @param meta the meta of the item, which has already been checked to be a shulker box. Versions that convert
+         *             the item to the current version may change the meta and write it back to the item.
+         */
+        public abstract ElevatorType getElevatorType(ItemStack item, ItemMeta meta);
 
         public abstract ElevatorType getElevatorType(ShulkerBox box);
 
@@ -5,6 +5,7 @@ import me.keehl.elevators.helpers.ElevatorGUIHelper;
 import me.keehl.elevators.helpers.ItemStackHelper;
 import me.keehl.elevators.helpers.MessageHelper;
 import me.keehl.elevators.models.ElevatorType;
+import me.keehl.elevators.services.ElevatorSearchCacheService;
 import me.keehl.elevators.services.ElevatorTypeService;
 import org.bukkit.*;
 import org.bukkit.command.Command;
@@ -33,6 +34,9 @@ public class ElevatorCommand implements CommandExecutor, TabCompleter {
                 } else if (args[0].equalsIgnoreCase("admin")) {
                     openAdmin(sender);
                     return true;
+                } else if (args[0].equalsIgnoreCase("stats")) {
+                    this.statsCommand(sender);
+                    return true;
                 } else if (args[0].equalsIgnoreCase("give")) {
 
                     // I feel I could do this better with varargs, but I'll be honest... I don't feel like it. This whole class is basically copied and pasted from the old one.
@@ -62,6 +66,7 @@ public class ElevatorCommand implements CommandExecutor, TabCompleter {
             sender.sendMessage(this.prefix + "Did you mean: ");
             sender.sendMessage(ChatColor.GOLD + "/elevators reload" + ChatColor.WHITE + "?");
             sender.sendMessage(ChatColor.GOLD + "/elevators admin" + ChatColor.WHITE + "?");
+            sender.sendMessage(ChatColor.GOLD + "/elevators stats" + ChatColor.WHITE + "?");
             sender.sendMessage(ChatColor.GOLD + "/elevators give <player> <type> [color] [amount] [silent]" + ChatColor.WHITE + "?");
         }
         return true;
@@ -76,7 +81,7 @@ public class ElevatorCommand implements CommandExecutor, TabCompleter {
         List<String> finalReturn = new ArrayList<>();
 
         if (args.length == 1)
-            completions.addAll(Arrays.asList("reload", "give", "admin"));
+            completions.addAll(Arrays.asList("reload", "give", "admin", "stats"));
         else if (args.length == 3 && args[0].equalsIgnoreCase("give")) {
             for (String name : ElevatorTypeService.getExistingElevatorKeys())
                 completions.add(name.toLowerCase());
@@ -100,12 +105,35 @@ public class ElevatorCommand implements CommandExecutor, TabCompleter {
 
     private void reloadCommand(CommandSender sender, String reload) {
         if (sender.hasPermission("elevators.reload")) {
-            Elevators.reloadElevators();
-            sender.sendMessage(this.prefix + "Reloaded the Elevators config!");
+            sender.sendMessage(this.prefix + "Reloading the Elevators config...");
+            Elevators.reloadElevatorsAsync().thenAccept(applied -> {
+                if (applied)
+                    sender.sendMessage(this.prefix + "Reloaded the Elevators config!");
+                else
+                    sender.sendMessage(this.prefix + ChatColor.RED + "Failed to reload the Elevators config. The current config has been kept. Check the console for details.");
+            });
         } else
             MessageHelper.sendCantReloadMessage(sender, null);
     }
 
+    private void statsCommand(CommandSender sender) {
+        if (!sender.hasPermission("elevators.admin")) {
+            MessageHelper.sendCantAdministrateMessage(sender, null);
+            return;
+        }
+
+        if (!ElevatorSearchCacheService.isEnabled()) {
+            sender.sendMessage(this.prefix + "The search cache is disabled. Set \"searchCacheSize\" in the config to enable it.");
+            return;
+        }
+
+        long hits = ElevatorSearchCacheService.getHits();
+        long misses = ElevatorSearchCacheService.getMisses();
+        long hitRate = hits + misses == 0 ? 0 : Math.round(hits * 100.0 / (hits + misses));
+        sender.sendMessage(this.prefix + "Search cache: " + ChatColor.GOLD + ElevatorSearchCacheService.getSize() + ChatColor.WHITE + " results held.");
+        sender.sendMessage(this.prefix + ChatColor.GOLD + hits + ChatColor.WHITE + " hits, " + ChatColor.GOLD + misses + ChatColor.WHITE + " misses (" + hitRate + "% hit rate).");
+    }
+
     private void openAdmin(CommandSender sender) {
         if (!sender.hasPermission("elevators.admin")) {
             MessageHelper.sendCantAdministrateMessage(sender, null);
@@ -0,0 +1,327 @@
+package me.keehl.elevators.services.configs;
+
+import me.keehl.elevators.services.ElevatorConfigService;
+import me.keehl.elevators.services.configs.versions.configv5_2_0.ConfigRoot;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * A binary copy of the parsed config data, written next to config.yml once the config has loaded. While the config
+ * files have the same size, modification time and hash as when the snapshot was taken, the snapshot is read in place
+ * of the YAML, which is far quicker to decode than to parse. Hashing the files costs little next to parsing them, and
+ * catches edits that keep the size and modification time, such as copies that preserve times or coarse file systems.
+ * <p>
+ * The snapshot holds the data as it came out of the YAML parser, before it was mapped onto the config classes. A
+ * snapshot from an older config version or snapshot format is ignored.
+ */
+public class ConfigSnapshot {
+
+    private static final int MAGIC = 0x454C5653; // "ELVS"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte STRING = 6;
+    private static final byte STRING_REF = 7;
+    private static final byte LIST = 8;
+    private static final byte MAP = 9;
+    private static final byte SET = 10;
+
+    public static File getSnapshotFile(File configFile) {
+        return new File(configFile.getParentFile(), "config.cache");
+    }
+
+    /**
+     * Reads the snapshot, provided every file it was taken from is unchanged and no type files have been added since.
+     * Files are compared by size and modification time first, and then by hash.
+     * The config files are then marked as being on disk, just as if they had been read.
+     *
+     * @return the config data, or null if there is no usable snapshot.
+     */
+    public static Map<?, ?> read(File configFile) {
+        File snapshotFile = getSnapshotFile(configFile);
+        if (!snapshotFile.isFile())
+            return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !in.readUTF().equals(getSchemaVersion()))
+                return null;
+
+            File configDirectory = configFile.getParentFile();
+            int sourceCount = in.readInt();
+            List<SourceFile> sources = new ArrayList<>(sourceCount);
+            for (int i = 0; i < sourceCount; i++) {
+                File file = new File(configDirectory, in.readUTF());
+                long length = in.readLong();
+                long lastModified = in.readLong();
+                byte[] hash = new byte[in.readUnsignedByte()];
+                in.readFully(hash);
+
+                if (file.length() != length || file.lastModified() != lastModified)
+                    return null;
+                sources.add(new SourceFile(file, length, lastModified, hash, null));
+            }
+
+            // A type file that was added since would otherwise go unnoticed.
+            File[] typeFiles = ElevatorConfigService.getTypeDirectory(configFile).listFiles((dir, name) -> name.endsWith(".yml"));
+            int expectedFiles = 1 + (typeFiles == null ? 0 : typeFiles.length);
+            if (sources.size() != expectedFiles || !sources.get(0).getFile().equals(configFile))
+                return null;
+
+            // Read only once everything cheaper has passed.
+            for (SourceFile source : sources) {
+                byte[] currentHash = SourceFile.read(source.getFile()).getHash();
+                if (!Arrays.equals(currentHash, source.getHash()))
+                    return null;
+            }
+
+            Object data = new Decoder(in).readValue();
+            if (!(data instanceof Map))
+                return null;
+
+            for (SourceFile source : sources)
+                ElevatorConfigService.markConfigOnDisk(source.getFile(), source.getHash());
+            return (Map<?, ?>) data;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Encodes the parsed config data. Must be called before the data is handed to the config classes, which may
+     * change it.
+     *
+     * @param sources the files the data was read from, starting with config.yml.
+     * @return the snapshot, or null if the data holds values the snapshot cannot store.
+     */
+    public static byte[] encode(List<SourceFile> sources, Map<?, ?> configData) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(getSchemaVersion());
+
+            File configDirectory = sources.get(0).getFile().getParentFile();
+            out.writeInt(sources.size());
+            for (SourceFile source : sources) {
+                out.writeUTF(configDirectory.toPath().relativize(source.getFile().toPath()).toString());
+                out.writeLong(source.getLength());
+                out.writeLong(source.getLastModified());
+                out.writeByte(source.getHash().length);
+                out.write(source.getHash());
+            }
+
+            new Encoder(out).writeValue(configData);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes an encoded snapshot next to the config file. A snapshot that cannot be written is simply not used.
+     */
+    public static void write(File configFile, byte[] snapshot) {
+        File snapshotFile = getSnapshotFile(configFile);
+        File tempFile = new File(snapshotFile.getParentFile(), snapshotFile.getName() + ".tmp");
+        try {
+            Files.write(tempFile.toPath(), snapshot);
+            Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            tempFile.delete();
+        }
+    }
+
+    private static String getSchemaVersion() {
+        return new ConfigRoot().version;
+    }
+
+    /**
+     * A config file as it was when it was read.
+     */
+    public static class SourceFile {
+
+        private final File file;
+        private final long length;
+        private final long lastModified;
+        private final byte[] hash;
+        private final String text;
+
+        private SourceFile(File file, long length, long lastModified, byte[] hash, String text) {
+            this.file = file;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.text = text;
+        }
+
+        /**
+         * Reads the file, taking its size and modification time first so that a change made while it is being read
+         * leaves the snapshot stale.
+         */
+        public static SourceFile read(File file) throws IOException {
+            long length = file.length();
+            long lastModified = file.lastModified();
+            String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            return new SourceFile(file, length, lastModified, ElevatorConfigService.hashConfigText(text), text);
+        }
+
+        public File getFile() {
+            return this.file;
+        }
+
+        public long getLength() {
+            return this.length;
+        }
+
+        public long getLastModified() {
+            return this.lastModified;
+        }
+
+        public byte[] getHash() {
+            return this.hash;
+        }
+
+        public String getText() {
+            return this.text;
+        }
+
+    }
+
+    // Strings are written once and referred to by index after that, as the same keys repeat for every elevator type.
+    private static class Encoder {
+
+        private final DataOutputStream out;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        private Encoder(DataOutputStream out) {
+            this.out = out;
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value == null) {
+                this.out.writeByte(NULL);
+            } else if (value instanceof Boolean) {
+                this.out.writeByte((Boolean) value ? TRUE : FALSE);
+            } else if (value instanceof Integer) {
+                this.out.writeByte(INT);
+                this.out.writeInt((Integer) value);
+            } else if (value instanceof Long) {
+                this.out.writeByte(LONG);
+                this.out.writeLong((Long) value);
+            } else if (value instanceof Double) {
+                this.out.writeByte(DOUBLE);
+                this.out.writeDouble((Double) value);
+            } else if (value instanceof String) {
+                this.writeString((String) value);
+            } else if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                this.out.writeByte(LIST);
+                this.out.writeInt(list.size());
+                for (Object item : list)
+                    this.writeValue(item);
+            } else if (value instanceof Set) {
+                Set<?> set = (Set<?>) value;
+                this.out.writeByte(SET);
+                this.out.writeInt(set.size());
+                for (Object item : set)
+                    this.writeValue(item);
+            } else if (value instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                this.out.writeByte(MAP);
+                this.out.writeInt(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    this.writeValue(entry.getKey());
+                    this.writeValue(entry.getValue());
+                }
+            } else
+                throw new IllegalArgumentException("Cannot store " + value.getClass().getName() + " in a config snapshot");
+        }
+
+        private void writeString(String value) throws IOException {
+            Integer index = this.strings.get(value);
+            if (index != null) {
+                this.out.writeByte(STRING_REF);
+                this.out.writeInt(index);
+                return;
+            }
+
+            this.strings.put(value, this.strings.size());
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            this.out.writeByte(STRING);
+            this.out.writeInt(bytes.length);
+            this.out.write(bytes);
+        }
+
+    }
+
+    private static class Decoder {
+
+        private final DataInputStream in;
+        private final List<String> strings = new ArrayList<>();
+
+        private Decoder(DataInputStream in) {
+            this.in = in;
+        }
+
+        private Object readValue() throws IOException {
+            byte tag = this.in.readByte();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case FALSE:
+                    return false;
+                case TRUE:
+                    return true;
+                case INT:
+                    return this.in.readInt();
+                case LONG:
+                    return this.in.readLong();
+                case DOUBLE:
+                    return this.in.readDouble();
+                case STRING:
+                    byte[] bytes = new byte[this.in.readInt()];
+                    this.in.readFully(bytes);
+                    String value = new String(bytes, StandardCharsets.UTF_8);
+                    this.strings.add(value);
+                    return value;
+                case STRING_REF:
+                    return this.strings.get(this.in.readInt());
+                case LIST:
+                    int listSize = this.in.readInt();
+                    List<Object> list = new ArrayList<>(listSize);
+                    for (int i = 0; i < listSize; i++)
+                        list.add(this.readValue());
+                    return list;
+                case SET:
+                    int setSize = this.in.readInt();
+                    Set<Object> set = new LinkedHashSet<>();
+                    for (int i = 0; i < setSize; i++)
+                        set.add(this.readValue());
+                    return set;
+                case MAP:
+                    int mapSize = this.in.readInt();
+                    Map<Object, Object> map = new LinkedHashMap<>();
+                    for (int i = 0; i < mapSize; i++) {
+                        Object key = this.readValue();
+                        map.put(key, this.readValue());
+                    }
+                    return map;
+                default:
+                    throw new IOException("Unknown value in config snapshot: " + tag);
+            }
+        }
+
+    }
+
+}
@@ -20,6 +20,7 @@ import me.keehl.elevators.services.configs.versions.configv5_1_0.V5_1_0ConfigVer
 import me.keehl.elevators.services.configs.versions.configv5_2_0.V5_2_0ConfigVersion;
 import me.keehl.elevators.util.config.Config;
 import me.keehl.elevators.util.config.ConfigConverter;
+import me.keehl.elevators.util.config.ConfigSchema;
 import me.keehl.elevators.util.config.nodes.ConfigRootNode;
 
 import java.io.File;
@@ -27,8 +28,10 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
-import java.util.Map;
+import java.util.*;
 import java.util.logging.Level;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class ConfigVersionBuilder {
 
@@ -41,49 +44,156 @@ public class ConfigVersionBuilder {
     private static final V5_2_0ConfigVersion v5_2_0ConfigVersion = new V5_2_0ConfigVersion();
 
     @SuppressWarnings("unchecked")
-    private static <Z extends Config, T extends Config, V extends ConfigVersion<Z, T>> T convert(V converter, File configFile, Z existingRoot) throws Exception {
+    private static <Z extends Config, T extends Config, V extends ConfigVersion<Z, T>> T convert(V converter, Map<?, ?> configData, Z existingRoot) throws Exception {
 
         if(existingRoot == null) {
             Type[] arguments = ((ParameterizedType) converter.getClass().getGenericSuperclass()).getActualTypeArguments();
             Class<T> newClass = (Class<T>) Elevators.getInstance().getClass().getClassLoader().loadClass(arguments[1].getTypeName());
-            T newRoot = newClass.getConstructor().newInstance();
-            return ConfigConverter.createNodeForConfig(newRoot, configFile).getRoot().getConfig();
+            T newRoot = (T) ConfigSchema.of(newClass).newInstance();
+            return ConfigConverter.createNodeForConfigData(newRoot, configData).getRoot().getConfig();
         }
 
         return converter.upgradeVersion(existingRoot);
 
     }
 
+    private static String getVersion(Map<?, ?> configData) {
+        if(configData == null)
+            return new BlankRoot().version;
+
+        for(Map.Entry<?, ?> entry : configData.entrySet()) {
+            if(String.valueOf(entry.getKey()).equalsIgnoreCase("version") && entry.getValue() instanceof String)
+                return (String) entry.getValue();
+        }
+        return new BlankRoot().version;
+    }
+
+    /*
+        Elevator types saved to their own files are parsed in parallel, then merged into the root data under
+        "elevators" before the config is built, so the rest of the plugin never knows which layout was used. A type in
+        its own file takes the place of one with the same key in the root file.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<?, ?> mergeTypeFiles(File configFile, Map<?, ?> configData, List<ConfigSnapshot.SourceFile> sources) {
+        File[] typeFiles = ElevatorConfigService.getTypeDirectory(configFile).listFiles((dir, name) -> name.endsWith(".yml"));
+        if(typeFiles == null || typeFiles.length == 0)
+            return configData;
+        Arrays.sort(typeFiles);
+
+        ConfigSnapshot.SourceFile[] typeSources = new ConfigSnapshot.SourceFile[typeFiles.length];
+        List<Map<?, ?>> typeData = IntStream.range(0, typeFiles.length).parallel().mapToObj(i -> {
+            File typeFile = typeFiles[i];
+            try {
+                ConfigSnapshot.SourceFile typeSource = ConfigSnapshot.SourceFile.read(typeFile);
+                ElevatorConfigService.markConfigOnDisk(typeFile, typeSource.getHash());
+                typeSources[i] = typeSource;
+
+                Map<?, ?> data = ConfigConverter.loadConfigData(typeSource.getText());
+                return data != null ? data : new LinkedHashMap<>();
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to load elevator type file \"" + typeFile.getName() + "\".", e);
+            }
+        }).collect(Collectors.toList());
+        sources.addAll(Arrays.asList(typeSources));
+
+        Map<Object, Object> rootData = configData != null ? (Map<Object, Object>) configData : new LinkedHashMap<>();
+        Object elevatorsKey = rootData.keySet().stream().filter(key -> String.valueOf(key).equalsIgnoreCase("elevators")).findFirst().orElse("elevators");
+
+        Map<Object, Object> elevators = rootData.get(elevatorsKey) instanceof Map ? (Map<Object, Object>) rootData.get(elevatorsKey) : new LinkedHashMap<>();
+        rootData.put(elevatorsKey, elevators);
+
+        for(int i = 0; i < typeFiles.length; i++) {
+            String typeKey = typeFiles[i].getName().substring(0, typeFiles[i].getName().length() - ".yml".length()).toUpperCase();
+            elevators.keySet().removeIf(key -> String.valueOf(key).equalsIgnoreCase(typeKey));
+            elevators.put(typeKey, typeData.get(i));
+        }
+
+        return rootData;
+    }
+
+    /*
+        The config is read and parsed once, and each version upgrade works on the objects loaded from that. The file is
+        only backed up and written to when its version had to be upgraded. Otherwise, the file is left alone here, and
+        ElevatorConfigService decides whether it needs rewriting by comparing it with the serialized result.
+     */
     public static ConfigRootNode<ConfigRoot> getConfig(File configFile) {
+        try {
+            return readConfig(configFile);
+        } catch (Exception e) {
+            Elevators.getElevatorsLogger().log(Level.SEVERE, "Error loading config. Using defaults. Please create an issue ticket on my GitHub with your config if you would like assistance: https://github.com/keehl254/Elevators/issues. Issue:\n" + ResourceHelper.cleanTrace(e));
+        }
+
+        ElevatorConfigService.invalidateConfig();
+        try {
+            return ConfigConverter.createNodeForConfigData(new ConfigRoot(), null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads, parses and if needed upgrades the config file, without touching any live state. Safe to call off the main
+     * thread. If the upgrade fails part way through, the original file is put back before the error is thrown.
+     */
+    public static ConfigRootNode<ConfigRoot> readConfig(File configFile) throws Exception {
+
+        // The files are unchanged since the last load, so the YAML does not need parsing again.
+        Map<?, ?> snapshotData = ConfigSnapshot.read(configFile);
+        if(snapshotData != null) {
+            try {
+                ConfigRootNode<ConfigRoot> rootNode = ConfigConverter.createNodeForConfigData(new ConfigRoot(), snapshotData);
+                if(rootNode != null)
+                    return rootNode;
+            } catch (Exception ignored) { // Falls back to the YAML, which will report the problem if it has one.
+            }
+        }
 
         File backupFile = null;
         try {
-            backupFile = new File(configFile.getParent(), configFile.getName() + "." + System.currentTimeMillis() + ".backup");
-            Files.copy(configFile.toPath(), backupFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            ConfigSnapshot.SourceFile configSource = ConfigSnapshot.SourceFile.read(configFile);
+            ElevatorConfigService.markConfigOnDisk(configFile, configSource.getHash());
 
-            String version = ConfigConverter.createNodeForConfig(new BlankRoot(), configFile).getConfig().version;
+            Map<?, ?> configData = ConfigConverter.loadConfigData(configSource.getText());
+            String version = getVersion(configData);
 
             Config root = null;
 
             switch (version) {
                 case "1.0.0":
-                    root = ConfigConverter.createNodeForConfig(new V1ConfigRoot(), configFile).getConfig();
+                    root = ConfigConverter.createNodeForConfigData(new V1ConfigRoot(), configData).getConfig();
                 case "2.0.0":
-                    root = convert(v2ConfigVersion, configFile, (V1ConfigRoot) root);
+                    root = convert(v2ConfigVersion, configData, (V1ConfigRoot) root);
                 case "3.0.0":
-                    root = convert(v3ConfigVersion, configFile, (V2ConfigRoot) root);
+                    root = convert(v3ConfigVersion, configData, (V2ConfigRoot) root);
                 case "4.0.0":
-                    root = convert(v4ConfigVersion, configFile, (V3ConfigRoot) root);
+                    root = convert(v4ConfigVersion, configData, (V3ConfigRoot) root);
                 case "4.0.2":
-                    root = convert(v4_0_2ConfigVersion, configFile, (V4ConfigRoot) root);
+                    root = convert(v4_0_2ConfigVersion, configData, (V4ConfigRoot) root);
                 case "5.0.0":
-                    root = convert(v5ConfigVersion, configFile, (V4_0_2ConfigRoot) root);
+                    root = convert(v5ConfigVersion, configData, (V4_0_2ConfigRoot) root);
                 case "5.1.0":
-                    root = convert(v5_1_0ConfigVersion, configFile, (V5ConfigRoot) root);
+                    root = convert(v5_1_0ConfigVersion, configData, (V5ConfigRoot) root);
                 default:
-                    root = convert(v5_2_0ConfigVersion, configFile, (V5_1_0ConfigRoot) root);
+                    if(root == null) { // Already on the latest version, so the parsed data can be used as it is.
+                        List<ConfigSnapshot.SourceFile> sources = new ArrayList<>();
+                        sources.add(configSource);
+                        configData = mergeTypeFiles(configFile, configData, sources);
+
+                        byte[] snapshot = configData != null ? ConfigSnapshot.encode(sources, configData) : null;
+                        ConfigRootNode<ConfigRoot> rootNode = ConfigConverter.createNodeForConfigData(new ConfigRoot(), configData);
+                        if(rootNode == null)
+                            throw new RuntimeException("Failed to load elevators config.");
+
+                        if(snapshot != null)
+                            ConfigSnapshot.write(configFile, snapshot);
+                        return rootNode;
+                    }
+                    root = convert(v5_2_0ConfigVersion, configData, (V5_1_0ConfigRoot) root);
             }
 
+            backupFile = new File(configFile.getParent(), configFile.getName() + "." + System.currentTimeMillis() + ".backup");
+            Files.copy(configFile.toPath(), backupFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
             ConfigConverter converter = ConfigConverter.getConverter(root.getClass());
             if(converter == null)
                 throw new RuntimeException("Failed to convert elevators version.");
@@ -93,8 +203,10 @@ public class ConfigVersionBuilder {
             if(rootNode == null)
                 throw new RuntimeException("Failed to convert elevators version.");
 
-            if(!ConfigConverter.saveConfigToFile(rootNode, configFile))
+            String convertedText = ConfigConverter.serializeConfig(rootNode);
+            if(convertedText == null || !ConfigConverter.writeConfigFile(convertedText, configFile))
                 throw new RuntimeException("Failed to save converted elevator version.");
+            ElevatorConfigService.markConfigOnDisk(configFile, convertedText);
 
             if(!backupFile.delete())
                 Elevators.getElevatorsLogger().log(Level.WARNING, "Failed to delete backup config file.");
@@ -102,22 +214,14 @@ public class ConfigVersionBuilder {
             return rootNode;
 
         } catch (Exception e) {
-            Elevators.getElevatorsLogger().log(Level.SEVERE, "Error loading config. Using defaults. Please create an issue ticket on my GitHub with your config if you would like assistance: https://github.com/keehl254/Elevators/issues. Issue:\n" + ResourceHelper.cleanTrace(e));
-        }
-
-        if (backupFile != null) {
-            try {
-                Files.copy(backupFile.toPath(), configFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-            } catch (Exception ex) {
-                Elevators.getElevatorsLogger().log(Level.SEVERE, "Error reverting to old config. Config backup is available in the Elevators config path.");
+            if (backupFile != null) {
+                try {
+                    Files.copy(backupFile.toPath(), configFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                } catch (Exception ex) {
+                    Elevators.getElevatorsLogger().log(Level.SEVERE, "Error reverting to old config. Config backup is available in the Elevators config path.");
+                }
             }
-        }
-
-        ElevatorConfigService.invalidateConfig();
-        try {
-            return ConfigConverter.createNodeForConfigData(new ConfigRoot(), null);
-        } catch (Exception e) {
-            return null;
+            throw e;
         }
     }
 
@@ -44,6 +44,40 @@ public class ConfigRoot implements Config {
     @Comments("Elevators cannot be used in the world names listed below.")
     public List<String> disabledWorlds = Collections.singletonList("example_world");
 
+    @Comments({"Elevators from older versions of the plugin are converted to the current format in the background.",
+            "If \"migrateUnloadedChunks\" is also enabled, every generated chunk will be loaded and converted. Once a world has been fully swept, an \"elevators-migrated\" file is written to its folder and legacy elevators are no longer checked for in that world.",
+            "Delete that file if legacy elevators are ever pasted back into the world."})
+    public boolean migrateLegacyElevators = true;
+
+    public boolean migrateUnloadedChunks = false;
+
+    @Comments("The maximum number of milliseconds the migration may use each tick.")
+    public int migrationTickBudget = 2;
+
+    @Comments({"If this option is enabled, elevator items from older versions of the plugin are recognised and converted when they are used.",
+            "Only disable this once no legacy elevator items are left, as they will be treated as plain shulker boxes."})
+    public boolean convertLegacyItems = true;
+
+    @Comments({"If this option is enabled, both destinations of an elevator are searched for as soon as a player steps onto it.",
+            "This moves the cost of the search out of the jump and sneak events, and lets a player reuse the results for as long as they stay on the elevator."})
+    public boolean prefetchDestinations = false;
+
+    @Comments({"The number of destination search results to remember. Results are forgotten as soon as a block in their column changes.",
+            "Changes made without block events, such as through WorldEdit, are not noticed. Set to 0 to disable."})
+    public int searchCacheSize = 0;
+
+    @Comments({"The number of ticks to wait after a change made through the GUI or commands before the config is saved.",
+            "Changes made within this window are written together."})
+    public int configSaveDelay = 40;
+
+    @Comments({"If this option is enabled, the config is reloaded automatically when this file or the effects folder is changed.",
+            "Reloads, whether automatic or through \"/elevators reload\", read the files off the main thread."})
+    public boolean watchConfigFiles = false;
+
+    @Comments({"If this option is enabled, each elevator type is saved to a file of its own in the \"types\" folder, named after the type.",
+            "Changes to one type only rewrite that type's file. Disabling this option moves the types back into this file."})
+    public boolean splitTypeFiles = false;
+
     public Map<String, ConfigEffect> effects;
 
     public Map<String, ElevatorType> elevators;
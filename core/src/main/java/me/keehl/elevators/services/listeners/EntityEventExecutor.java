@@ -1,5 +1,6 @@
 package me.keehl.elevators.services.listeners;
 
+import me.keehl.elevators.Elevators;
 import me.keehl.elevators.helpers.*;
 import me.keehl.elevators.models.Elevator;
 import me.keehl.elevators.models.ElevatorEventData;
@@ -8,7 +9,9 @@ import me.keehl.elevators.services.ElevatorConfigService;
 import me.keehl.elevators.services.ElevatorRecipeService;
 import me.keehl.elevators.services.ElevatorSettingService;
 import me.keehl.elevators.services.ElevatorHookService;
+import me.keehl.elevators.services.ElevatorPrefetchService;
 import me.keehl.elevators.util.InternalElevatorSettingType;
+import org.bukkit.Location;
 import org.bukkit.Sound;
 import org.bukkit.Statistic;
 import org.bukkit.block.Block;
@@ -19,6 +22,8 @@ import org.bukkit.event.entity.EntityPickupItemEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
 import org.bukkit.event.player.PlayerToggleSneakEvent;
 import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
@@ -35,6 +40,31 @@ public class EntityEventExecutor {
         ElevatorRecipeService.discoverRecipesForPlayer(e.getPlayer());
     }
 
+    public static void onQuit(PlayerQuitEvent event) {
+        ElevatorPrefetchService.forgetPlayer(event.getPlayer());
+    }
+
+    public static void onBlockMove(PlayerMoveEvent event) {
+        if (!ElevatorPrefetchService.isEnabled() || event.getTo() == null)
+            return;
+
+        Location from = event.getFrom();
+        Location to = event.getTo();
+        if (from.getBlockX() == to.getBlockX() && from.getBlockY() == to.getBlockY() && from.getBlockZ() == to.getBlockZ() && from.getWorld() == to.getWorld())
+            return;
+
+        ElevatorPrefetchService.onPlayerMove(event.getPlayer(), to);
+    }
+
+    // The destination may belong to another region on Folia, so it is only looked at once the player is there.
+    public static void onTeleport(PlayerTeleportEvent event) {
+        if (!ElevatorPrefetchService.isEnabled())
+            return;
+
+        Player player = event.getPlayer();
+        Elevators.getFoliaLib().getScheduler().runAtEntityLater(player, () -> ElevatorPrefetchService.onPlayerMove(player, player.getLocation()), 1);
+    }
+
     public static void onJumpDefault(PlayerMoveEvent event) {
         if (event.getPlayer().isFlying()) return;
         if (((Math.ceil((event.getFrom().getY() % 1) * 10000.0) / 10000.0) % 0.0625) != 0) return;
@@ -59,16 +89,18 @@ public class EntityEventExecutor {
         if(!ElevatorHookService.canUseElevator(event.getPlayer(), elevator, true))
             return;
 
-        ElevatorEventData closest = ElevatorHelper.findDestinationElevator(event.getPlayer(), elevator, (byte) 1);
-        if (closest == null) return;
+        Player player = event.getPlayer();
+        ElevatorHelper.findDestinationAsync(player, elevator, (byte) 1).thenAccept(closest -> {
+            if (closest == null) return;
 
-        if (!ElevatorPermHelper.canUseElevator(event.getPlayer(), closest)) {
-            if (ElevatorHelper.hasOrAddPlayerCoolDown(event.getPlayer(), "message"))
-                MessageHelper.sendCantUseMessage(event.getPlayer(), closest);
-            return;
-        }
+            if (!ElevatorPermHelper.canUseElevator(player, closest)) {
+                if (ElevatorHelper.hasOrAddPlayerCoolDown(player, "message"))
+                    MessageHelper.sendCantUseMessage(player, closest);
+                return;
+            }
 
-        ElevatorHelper.onElevatorUse(event.getPlayer(), closest);
+            ElevatorHelper.onElevatorUse(player, closest);
+        });
     }
 
     public static void onSneak(PlayerToggleSneakEvent event) {
@@ -91,16 +123,18 @@ public class EntityEventExecutor {
         if(!ElevatorHookService.canUseElevator(event.getPlayer(), elevator, true))
             return;
 
-        ElevatorEventData closest = ElevatorHelper.findDestinationElevator(event.getPlayer(), elevator, (byte) -1);
-        if (closest == null) return;
+        Player player = event.getPlayer();
+        ElevatorHelper.findDestinationAsync(player, elevator, (byte) -1).thenAccept(closest -> {
+            if (closest == null) return;
 
-        if (!ElevatorPermHelper.canUseElevator(event.getPlayer(), closest)) {
-            if (ElevatorHelper.hasOrAddPlayerCoolDown(event.getPlayer(), "message"))
-                MessageHelper.sendCantUseMessage(event.getPlayer(), closest);
-            return;
-        }
+            if (!ElevatorPermHelper.canUseElevator(player, closest)) {
+                if (ElevatorHelper.hasOrAddPlayerCoolDown(player, "message"))
+                    MessageHelper.sendCantUseMessage(player, closest);
+                return;
+            }
 
-        ElevatorHelper.onElevatorUse(event.getPlayer(), closest);
+            ElevatorHelper.onElevatorUse(player, closest);
+        });
     }
 
     public static void onRightClick(PlayerInteractEvent event) {
@@ -136,17 +170,17 @@ public class EntityEventExecutor {
         ItemStack item = event.getItem().getItemStack();
         if (ItemStackHelper.isNotShulkerBox(item.getType()))
             return;
-        if (!ElevatorHelper.isElevator(item))
-            return;
         if (!(event.getEntity() instanceof Player))
             return;
+        ElevatorType elevatorType = ElevatorHelper.getElevatorType(item);
+        if (elevatorType == null)
+            return;
         Player player = (Player) event.getEntity();
 
         ItemMeta itemMeta = item.getItemMeta();
         if(itemMeta == null)
             return; // To appease the god that is intellisense.
 
-        ElevatorType elevatorType = ElevatorHelper.getElevatorType(item);
         if((int) ElevatorSettingService.getElevatorSettingValue(elevatorType, InternalElevatorSettingType.MAX_STACK_SIZE) <= 1)
             return; // I really wish Minecraft would support custom item maxStackSizes already. Returning here gives the most natural pickup.
 
@@ -4,7 +4,9 @@ import me.keehl.elevators.helpers.*;
 import me.keehl.elevators.models.ElevatorEventData;
 import me.keehl.elevators.models.ElevatorType;
 import me.keehl.elevators.services.ElevatorDataContainerService;
+import me.keehl.elevators.services.ElevatorHopperCacheService;
 import me.keehl.elevators.services.ElevatorSettingService;
+import me.keehl.elevators.services.ElevatorVersionService;
 import me.keehl.elevators.util.InternalElevatorSettingType;
 import org.bukkit.DyeColor;
 import org.bukkit.Keyed;
@@ -33,13 +35,16 @@ public class InventoryEventExecutor {
 
     public static void updateStackOnClick(InventoryClickEvent event) {
         ItemStack clickedItem = event.getCurrentItem();
-        if(clickedItem == null)
+        if(clickedItem == null || ItemStackHelper.isNotShulkerBox(clickedItem.getType()) || !clickedItem.hasItemMeta())
             return;
-        ElevatorType elevatorType = ElevatorHelper.getElevatorType(clickedItem);
+
+        // Runs for every click on the server, so the meta is read once and the item is only rewritten if it is out of date.
+        ItemMeta meta = clickedItem.getItemMeta();
+        ElevatorType elevatorType = ElevatorVersionService.getElevatorType(clickedItem, meta);
         if(elevatorType == null)
             return;
 
-        ItemStackHelper.updateElevator(elevatorType, clickedItem);
+        ItemStackHelper.updateElevator(elevatorType, clickedItem, meta);
     }
 
     @SuppressWarnings("ConstantConditions")
@@ -100,22 +105,25 @@ public class InventoryEventExecutor {
             return;
         }
 
-        ElevatorType elevatorType = ElevatorHelper.getElevatorType(event.getItem());
-        if (elevatorType != null) {
+        ElevatorType elevatorType = ItemStackHelper.isNotShulkerBox(item.getType()) ? null : ElevatorVersionService.getElevatorType(item, meta);
+        if (elevatorType != null && !ElevatorDataContainerService.isItemCurrent(meta, elevatorType)) {
             meta.setDisplayName(MessageHelper.formatLineColors(ElevatorSettingService.getElevatorSettingValue(elevatorType, InternalElevatorSettingType.DISPLAY_NAME)));
             meta.setLore(MessageHelper.formatListColors(ElevatorSettingService.getElevatorSettingValue(elevatorType, InternalElevatorSettingType.LORE_LINES)));
-            event.getItem().setItemMeta(meta);
-        }
-        Location src = event.getSource().getLocation();
-        if (event.getSource().getType() == InventoryType.SHULKER_BOX && src != null && !ItemStackHelper.isNotShulkerBox(src.getBlock().getType())) {
-            if (ElevatorHelper.isElevator(src.getBlock()))
-                event.setCancelled(true);
-        }
-        Location dst = event.getDestination().getLocation();
-        if (event.getDestination().getType() == InventoryType.SHULKER_BOX && dst != null && !ItemStackHelper.isNotShulkerBox(dst.getBlock().getType())) {
-            if (ElevatorHelper.isElevator(dst.getBlock()))
-                event.setCancelled(true);
+            ElevatorDataContainerService.setItemCurrent(meta, elevatorType);
+            item.setItemMeta(meta);
+            event.setItem(item); // The event only hands out copies of the item.
         }
+        if (event.getSource().getType() == InventoryType.SHULKER_BOX && isElevatorInventory(event.getSource()))
+            event.setCancelled(true);
+        if (event.getDestination().getType() == InventoryType.SHULKER_BOX && isElevatorInventory(event.getDestination()))
+            event.setCancelled(true);
+    }
+
+    private static boolean isElevatorInventory(Inventory inventory) {
+        return ElevatorHopperCacheService.isElevator(inventory, () -> {
+            Location location = inventory.getLocation();
+            return location != null && !ItemStackHelper.isNotShulkerBox(location.getBlock().getType()) && ElevatorHelper.isElevator(location.getBlock());
+        });
     }
 
     public static void onAnvilPrepare(PrepareAnvilEvent e) {
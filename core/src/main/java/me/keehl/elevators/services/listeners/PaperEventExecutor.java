@@ -3,12 +3,16 @@ package me.keehl.elevators.services.listeners;
 import com.destroystokyo.paper.event.player.PlayerJumpEvent;
 import me.keehl.elevators.helpers.ElevatorHelper;
 import me.keehl.elevators.helpers.ElevatorPermHelper;
+import me.keehl.elevators.helpers.ItemStackHelper;
 import me.keehl.elevators.helpers.MessageHelper;
 import me.keehl.elevators.helpers.ShulkerBoxHelper;
 import me.keehl.elevators.models.Elevator;
 import me.keehl.elevators.models.ElevatorEventData;
 import me.keehl.elevators.models.ElevatorType;
 import me.keehl.elevators.services.ElevatorConfigService;
+import me.keehl.elevators.services.ElevatorDataContainerService;
+import me.keehl.elevators.services.ElevatorHopperCacheService;
+import me.keehl.elevators.services.ElevatorVersionService;
 import me.keehl.elevators.services.ElevatorSettingService;
 import me.keehl.elevators.services.ElevatorHookService;
 import io.papermc.lib.PaperLib;
@@ -16,8 +20,10 @@ import me.keehl.elevators.util.InternalElevatorSettingType;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.block.ShulkerBox;
+import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.InventoryMoveItemEvent;
 import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 
@@ -42,16 +48,18 @@ public class PaperEventExecutor {
         if(!ElevatorHookService.canUseElevator(e.getPlayer(), elevator, true))
             return;
 
-        ElevatorEventData closest = ElevatorHelper.findDestinationElevator(e.getPlayer(), elevator, (byte) 1);
-        if (closest == null) return;
+        Player player = e.getPlayer();
+        ElevatorHelper.findDestinationAsync(player, elevator, (byte) 1).thenAccept(closest -> {
+            if (closest == null) return;
 
-        if (!ElevatorPermHelper.canUseElevator(e.getPlayer(), closest)) {
-            if (ElevatorHelper.hasOrAddPlayerCoolDown(e.getPlayer(), "message"))
-                MessageHelper.sendCantUseMessage(e.getPlayer(), closest);
-            return;
-        }
+            if (!ElevatorPermHelper.canUseElevator(player, closest)) {
+                if (ElevatorHelper.hasOrAddPlayerCoolDown(player, "message"))
+                    MessageHelper.sendCantUseMessage(player, closest);
+                return;
+            }
 
-        ElevatorHelper.onElevatorUse(e.getPlayer(), closest);
+            ElevatorHelper.onElevatorUse(player, closest);
+        });
     }
 
     // Improvement made here is the use of getHolder without snapshots. Man I love paper.
@@ -68,19 +76,25 @@ public class PaperEventExecutor {
             return;
         }
 
-        ElevatorType elevatorType = ElevatorHelper.getElevatorType(event.getItem());
-        if (elevatorType != null) {
+        ElevatorType elevatorType = ItemStackHelper.isNotShulkerBox(item.getType()) ? null : ElevatorVersionService.getElevatorType(item, meta);
+        if (elevatorType != null && !ElevatorDataContainerService.isItemCurrent(meta, elevatorType)) {
             meta.setDisplayName(MessageHelper.formatLineColors(ElevatorSettingService.getElevatorSettingValue(elevatorType, InternalElevatorSettingType.DISPLAY_NAME)));
             meta.setLore(MessageHelper.formatListColors(ElevatorSettingService.getElevatorSettingValue(elevatorType, InternalElevatorSettingType.LORE_LINES)));
-            event.getItem().setItemMeta(meta);
+            ElevatorDataContainerService.setItemCurrent(meta, elevatorType);
+            item.setItemMeta(meta);
+            event.setItem(item); // The event only hands out copies of the item.
         }
 
-        if(event.getSource().getType() == InventoryType.SHULKER_BOX && ElevatorHelper.isElevator(PaperLib.getHolder(event.getSource(), false).getHolder()))
+        if(event.getSource().getType() == InventoryType.SHULKER_BOX && isElevatorInventory(event.getSource()))
             event.setCancelled(true);
 
 
-        if(event.getDestination().getType() == InventoryType.SHULKER_BOX && ElevatorHelper.isElevator(PaperLib.getHolder(event.getDestination(), false).getHolder()))
+        if(event.getDestination().getType() == InventoryType.SHULKER_BOX && isElevatorInventory(event.getDestination()))
             event.setCancelled(true);
     }
 
+    private static boolean isElevatorInventory(Inventory inventory) {
+        return ElevatorHopperCacheService.isElevator(inventory, () -> ElevatorHelper.isElevator(PaperLib.getHolder(inventory, false).getHolder()));
+    }
+
 }
@@ -11,6 +11,9 @@ import me.keehl.elevators.models.ElevatorType;
 import me.keehl.elevators.services.ElevatorConfigService;
 import me.keehl.elevators.services.ElevatorDataContainerService;
 import me.keehl.elevators.services.ElevatorHologramService;
+import me.keehl.elevators.services.ElevatorIndexService;
+import me.keehl.elevators.services.ElevatorHopperCacheService;
+import me.keehl.elevators.services.ElevatorMigrationService;
 import me.keehl.elevators.services.ElevatorSettingService;
 import me.keehl.elevators.util.InternalElevatorSettingType;
 import org.bukkit.GameMode;
@@ -21,9 +24,12 @@ import org.bukkit.block.ShulkerBox;
 import org.bukkit.block.data.type.Dispenser;
 import org.bukkit.entity.Item;
 import org.bukkit.event.block.*;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
 import org.bukkit.event.entity.EntityExplodeEvent;
 import org.bukkit.event.world.ChunkLoadEvent;
 import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.ArrayList;
@@ -62,6 +68,7 @@ public class WorldEventExecutor {
                 final Location location = block.getLocation();
                 Elevators.getFoliaLib().getScheduler().runAtLocation(location, task -> {
                     location.getBlock().setType(Material.AIR);
+                    ElevatorIndexService.removeElevator(location.getBlock());
                     location.getWorld().dropItemNaturally(location, newItem);
                 });
             }
@@ -90,6 +97,8 @@ public class WorldEventExecutor {
 
             ElevatorDataContainerService.updateTypeKeyOnElevator(box, elevatorType);
             ElevatorDataContainerService.dumpDataFromItemIntoShulkerBox(box, event.getItem());
+            ElevatorIndexService.addElevator(relative);
+            ElevatorHopperCacheService.invalidate(relative);
             ElevatorHelper.onElevatorPlace(new Elevator(box, elevatorType));
             if (ElevatorConfigService.getRootConfig().forceFacingUpwards)
                 ShulkerBoxHelper.setFacingUp(box);
@@ -104,6 +113,7 @@ public class WorldEventExecutor {
         if (elevatorType == null) return;
 
         Elevator elevator = new Elevator(box, elevatorType);
+        ElevatorIndexService.removeElevator(event.getBlock());
         ElevatorHologramService.deleteHologram(elevator);
         ItemStack newElevatorItem = ItemStackHelper.createItemStackFromElevator(elevator);
 
@@ -137,6 +147,7 @@ public class WorldEventExecutor {
         if (box == null)
             return;
         box = ElevatorDataContainerService.updateTypeKeyOnElevator(box, elevatorType);
+        ElevatorIndexService.addElevator(event.getBlockPlaced());
         Elevator elevator = new Elevator(box, elevatorType);
         ElevatorHelper.onElevatorPlace(elevator);
 
@@ -147,7 +158,102 @@ public class WorldEventExecutor {
     }
 
 
+    // The handlers below drop the hopper cache entries of blocks that changed. They are always registered.
+    public static void onHopperBlockChange(BlockPlaceEvent event) {
+        ElevatorHopperCacheService.invalidate(event.getBlock());
+    }
+
+    public static void onHopperBlockChange(BlockBreakEvent event) {
+        ElevatorHopperCacheService.invalidate(event.getBlock());
+    }
+
+    public static void onHopperBlockChange(BlockPistonExtendEvent event) {
+        event.getBlocks().forEach(block -> {
+            ElevatorHopperCacheService.invalidate(block);
+            ElevatorHopperCacheService.invalidate(block.getRelative(event.getDirection()));
+        });
+    }
+
+    public static void onHopperBlockChange(BlockPistonRetractEvent event) {
+        event.getBlocks().forEach(block -> {
+            ElevatorHopperCacheService.invalidate(block);
+            ElevatorHopperCacheService.invalidate(block.getRelative(event.getDirection()));
+        });
+    }
+
+    public static void onHopperBlockChange(BlockExplodeEvent event) {
+        event.blockList().forEach(ElevatorHopperCacheService::invalidate);
+    }
+
+    public static void onHopperBlockChange(EntityExplodeEvent event) {
+        event.blockList().forEach(ElevatorHopperCacheService::invalidate);
+    }
+
+    // The handlers below only tell the index that a column changed. They are only registered while something relies on
+    // column revisions, see ElevatorListenerService#watchColumnChangesForConfig.
+    public static void onColumnChange(BlockPlaceEvent event) {
+        ElevatorIndexService.onBlockChange(event.getBlock());
+    }
+
+    public static void onColumnChange(BlockBreakEvent event) {
+        ElevatorIndexService.onBlockChange(event.getBlock());
+    }
+
+    public static void onColumnChange(BlockFromToEvent event) {
+        ElevatorIndexService.onBlockChange(event.getToBlock());
+    }
+
+    public static void onColumnChange(BlockPistonExtendEvent event) {
+        ElevatorIndexService.onBlockChange(event.getBlock().getRelative(event.getDirection()));
+        event.getBlocks().forEach(block -> {
+            ElevatorIndexService.onBlockChange(block);
+            ElevatorIndexService.onBlockChange(block.getRelative(event.getDirection()));
+        });
+    }
+
+    public static void onColumnChange(BlockPistonRetractEvent event) {
+        ElevatorIndexService.onBlockChange(event.getBlock().getRelative(event.getDirection()));
+        event.getBlocks().forEach(block -> {
+            ElevatorIndexService.onBlockChange(block);
+            ElevatorIndexService.onBlockChange(block.getRelative(event.getDirection()));
+        });
+    }
+
+    public static void onColumnChange(BlockExplodeEvent event) {
+        event.blockList().forEach(ElevatorIndexService::onBlockChange);
+    }
+
+    public static void onColumnChange(EntityExplodeEvent event) {
+        event.blockList().forEach(ElevatorIndexService::onBlockChange);
+    }
+
+    public static void onColumnChange(BlockBurnEvent event) {
+        ElevatorIndexService.onBlockChange(event.getBlock());
+    }
+
+    public static void onColumnChange(BlockFadeEvent event) {
+        ElevatorIndexService.onBlockChange(event.getBlock());
+    }
+
+    public static void onColumnChange(BlockFormEvent event) {
+        ElevatorIndexService.onBlockChange(event.getBlock());
+    }
+
+    public static void onColumnChange(BlockGrowEvent event) {
+        ElevatorIndexService.onBlockChange(event.getBlock());
+    }
+
+    public static void onColumnChange(LeavesDecayEvent event) {
+        ElevatorIndexService.onBlockChange(event.getBlock());
+    }
+
+    public static void onColumnChange(EntityChangeBlockEvent event) {
+        ElevatorIndexService.onBlockChange(event.getBlock());
+    }
+
     public static void onChunkLoad(ChunkLoadEvent event) {
+        ElevatorIndexService.indexChunk(event.getChunk());
+
         if (!ElevatorHologramService.canUseHolograms())
             return;
 
@@ -155,10 +261,23 @@ public class WorldEventExecutor {
     }
 
     public static void onChunkUnload(ChunkUnloadEvent event) {
+        ElevatorIndexService.dropChunk(event.getChunk());
+        ElevatorHopperCacheService.dropChunk(event.getChunk());
+
         if (!ElevatorHologramService.canUseHolograms())
             return;
 
         ElevatorHologramService.deleteHologramsInChunk(event.getChunk());
     }
 
+    public static void onWorldLoad(WorldLoadEvent event) {
+        ElevatorMigrationService.loadWorld(event.getWorld());
+    }
+
+    public static void onWorldUnload(WorldUnloadEvent event) {
+        ElevatorIndexService.dropWorld(event.getWorld());
+        ElevatorHopperCacheService.dropWorld(event.getWorld());
+        ElevatorMigrationService.unloadWorld(event.getWorld());
+    }
+
 }
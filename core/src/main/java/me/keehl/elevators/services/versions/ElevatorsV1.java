@@ -1,6 +1,5 @@
 package me.keehl.elevators.services.versions;
 
-import me.keehl.elevators.helpers.ItemStackHelper;
 import me.keehl.elevators.helpers.ShulkerBoxHelper;
 import me.keehl.elevators.models.ElevatorType;
 import me.keehl.elevators.services.ElevatorTypeService;
@@ -16,23 +15,7 @@ import org.bukkit.inventory.meta.ItemMeta;
 
 public class ElevatorsV1 extends ElevatorVersionService.ElevatorVersion {
 
-    private ElevatorType getV1ElevatorType(ItemStack item) {
-        if (ItemStackHelper.isNotShulkerBox(item.getType()))
-            return null;
-
-        ItemMeta meta = item.getItemMeta();
-        if (meta == null)
-            return null;
-
-        if (!(meta instanceof BlockStateMeta))
-            return null;
-        BlockStateMeta blockMeta = (BlockStateMeta) meta;
-        BlockState blockState = blockMeta.getBlockState();
-
-        if (!(blockState instanceof ShulkerBox))
-            return null;
-        ShulkerBox box = (ShulkerBox) blockState;
-
+    private ElevatorType getV1ElevatorType(ShulkerBox box) {
         ItemStack firstItem = box.getInventory().getItem(0);
         if (firstItem == null)
             return null;
@@ -54,20 +37,26 @@ public class ElevatorsV1 extends ElevatorVersionService.ElevatorVersion {
     }
 
     @Override
-    public ElevatorType getElevatorType(ItemStack itemStack) {
-        if (ItemStackHelper.isNotShulkerBox(itemStack.getType()))
+    public ElevatorType getElevatorType(ItemStack itemStack, ItemMeta meta) {
+        // V1 elevators kept their type in the box's contents. Checking for a block state first avoids building one.
+        if (!(meta instanceof BlockStateMeta) || !((BlockStateMeta) meta).hasBlockState())
             return null;
-        ElevatorType type = getV1ElevatorType(itemStack);
+        BlockStateMeta blockMeta = (BlockStateMeta) meta;
+
+        BlockState blockState = blockMeta.getBlockState();
+        if (!(blockState instanceof ShulkerBox))
+            return null;
+        ShulkerBox box = (ShulkerBox) blockState;
+
+        ElevatorType type = getV1ElevatorType(box);
         if (type == null)
             return null;
-        ElevatorDataContainerService.updateItemStackFromV2(itemStack, type);
 
-        BlockStateMeta meta = (BlockStateMeta) itemStack.getItemMeta();
-        ShulkerBox box = (ShulkerBox) meta.getBlockState();
+        // Converted in a single write, so the item is only found to be a V1 elevator once.
+        ElevatorDataContainerService.updateItemMetaFromV2(blockMeta, type);
         box.getSnapshotInventory().clear();
-        box.update();
-        meta.setBlockState(box);
-        itemStack.setItemMeta(meta);
+        blockMeta.setBlockState(box);
+        itemStack.setItemMeta(blockMeta);
 
         return type;
     }
@@ -1,6 +1,5 @@
 package me.keehl.elevators.services.versions;
 
-import me.keehl.elevators.helpers.ItemStackHelper;
 import me.keehl.elevators.helpers.MessageHelper;
 import me.keehl.elevators.helpers.ShulkerBoxHelper;
 import me.keehl.elevators.models.ElevatorType;
@@ -9,22 +8,17 @@ import me.keehl.elevators.services.ElevatorVersionService;
 import org.bukkit.block.Block;
 import org.bukkit.block.ShulkerBox;
 import org.bukkit.inventory.ItemStack;
-
-import java.util.Objects;
+import org.bukkit.inventory.meta.ItemMeta;
 
 public class ElevatorsV2 extends ElevatorVersionService.ElevatorVersion {
 
     @Override
-    public ElevatorType getElevatorType(ItemStack itemStack) {
-        if (ItemStackHelper.isNotShulkerBox(itemStack.getType()))
-            return null;
-        if (!Objects.requireNonNull(itemStack.getItemMeta()).hasDisplayName())
-            return null;
-        String customName = itemStack.getItemMeta().getDisplayName();
-        if (!customName.contains(MessageHelper.hideText("CoreEleKey:")))
+    public ElevatorType getElevatorType(ItemStack itemStack, ItemMeta meta) {
+        if (!meta.hasDisplayName())
             return null;
+        String customName = meta.getDisplayName();
 
-        int sub = customName.indexOf(MessageHelper.hideText("CoreEleKey:"));
+        int sub = customName.indexOf(ElevatorDataContainerService.HIDDEN_KEY_MARKER);
         if (sub == -1)
             return null;
         customName = customName.substring(sub);
@@ -39,8 +33,10 @@ public class ElevatorsV2 extends ElevatorVersionService.ElevatorVersion {
         if (hidden.split(":").length == 1)
             return null;
         ElevatorType elevatorType = getClassFromBoxName(hidden.split(":")[1]);
-        if(elevatorType != null)
-            ElevatorDataContainerService.setElevatorKey(itemStack, elevatorType);
+        if(elevatorType != null) {
+            ElevatorDataContainerService.setElevatorKey(meta, elevatorType);
+            itemStack.setItemMeta(meta);
+        }
         return elevatorType;
     }
 
@@ -49,10 +45,8 @@ public class ElevatorsV2 extends ElevatorVersionService.ElevatorVersion {
         if (box.getCustomName() == null)
             return null;
         String customName = box.getCustomName();
-        if(!customName.contains(MessageHelper.hideText("CoreEleKey:")))
-            return null;
 
-        int sub = customName.indexOf(MessageHelper.hideText("CoreEleKey:"));
+        int sub = customName.indexOf(ElevatorDataContainerService.HIDDEN_KEY_MARKER);
         if (sub == -1)
             return null;
         customName = customName.substring(sub);
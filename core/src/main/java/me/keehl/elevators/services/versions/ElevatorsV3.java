@@ -1,6 +1,5 @@
 package me.keehl.elevators.services.versions;
 
-import me.keehl.elevators.helpers.ItemStackHelper;
 import me.keehl.elevators.helpers.ShulkerBoxHelper;
 import me.keehl.elevators.models.ElevatorType;
 import me.keehl.elevators.services.ElevatorVersionService;
@@ -8,14 +7,13 @@ import me.keehl.elevators.services.ElevatorDataContainerService;
 import org.bukkit.block.Block;
 import org.bukkit.block.ShulkerBox;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
 
 public class ElevatorsV3 extends ElevatorVersionService.ElevatorVersion {
 
     @Override
-    public ElevatorType getElevatorType(ItemStack itemStack) {
-        if (ItemStackHelper.isNotShulkerBox(itemStack.getType()))
-            return null;
-        return getClassFromBoxName(ElevatorDataContainerService.getElevatorKey(itemStack));
+    public ElevatorType getElevatorType(ItemStack itemStack, ItemMeta meta) {
+        return getClassFromBoxName(ElevatorDataContainerService.getElevatorKey(meta));
     }
 
     @Override
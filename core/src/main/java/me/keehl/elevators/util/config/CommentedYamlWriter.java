@@ -0,0 +1,176 @@
+package me.keehl.elevators.util.config;
+
+import me.keehl.elevators.util.config.nodes.ConfigRootNode;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sits between the YAML dumper and the file, inserting the comments of a config root node above the keys they belong
+ * to as the YAML passes through. Lines are handled one at a time, so the config is never held in memory as a whole.
+ * <p>
+ * Keys are tracked by their indentation, exactly as the config saver always has, so files are written the same as
+ * before, byte for byte.
+ */
+class CommentedYamlWriter extends Writer {
+
+    private final ConfigRootNode<?> node;
+    private final Writer out;
+
+    private final StringBuilder line = new StringBuilder();
+    private int pendingEmptyLines = 0;
+
+    private final ArrayList<String> keyChain = new ArrayList<>();
+    private final StringBuilder path = new StringBuilder();
+    private int[] pathLengths = new int[16];
+    private int depth = 0;
+
+    private char[] indent = new char[0];
+
+    CommentedYamlWriter(ConfigRootNode<?> node, Writer out) {
+        this(node, out, "");
+    }
+
+    /**
+     * @param commentPrefix put in front of every key path when looking up comments. Used to write part of a config to
+     *                      its own file, such as "elevators.DEFAULT." for a single elevator type.
+     */
+    CommentedYamlWriter(ConfigRootNode<?> node, Writer out, String commentPrefix) {
+        this.node = node;
+        this.out = out;
+        this.path.append(commentPrefix);
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            char c = chars[i];
+            if (c == '\n')
+                this.endLine();
+            else
+                this.line.append(c);
+        }
+    }
+
+    private void endLine() throws IOException {
+        if (this.line.length() == 0) {
+            // Empty lines at the very end of the YAML are dropped, so they are only written once something follows.
+            this.pendingEmptyLines++;
+            return;
+        }
+
+        for (; this.pendingEmptyLines > 0; this.pendingEmptyLines--)
+            this.writeLine("");
+
+        this.writeLine(this.line.toString());
+        this.line.setLength(0);
+    }
+
+    private void writeLine(String line) throws IOException {
+        if (hasIndent(line, this.depth)) {
+            this.pushKey(line);
+            this.depth += 2;
+        } else {
+            if (hasIndent(line, this.depth - 2))
+                this.popKey();
+            else {
+                int spaces = 0;
+                while (spaces < line.length() && line.charAt(spaces) == ' ')
+                    spaces++;
+
+                if (spaces == 0) {
+                    this.truncateKeys(0);
+                    this.depth = 2;
+                } else {
+                    this.truncateKeys((spaces + 1) / 2);
+                    this.depth = spaces + 2;
+                }
+            }
+
+            this.pushKey(line);
+        }
+
+        List<String> comments = this.node.getCommentsAtPath(this.path.toString());
+        for (String comment : comments) {
+            this.writeIndent(this.depth - 2);
+            this.out.write("# ");
+            this.out.write(comment);
+            this.out.write('\n');
+        }
+
+        this.out.write(line);
+        this.out.write('\n');
+    }
+
+    private void pushKey(String line) {
+        int size = this.keyChain.size();
+        if (size == this.pathLengths.length)
+            this.pathLengths = Arrays.copyOf(this.pathLengths, size * 2);
+        this.pathLengths[size] = this.path.length();
+
+        int keyEnd = line.indexOf(':');
+        String key = (keyEnd == -1 ? line : line.substring(0, keyEnd)).trim();
+        if (size > 0)
+            this.path.append('.');
+        this.path.append(key);
+        this.keyChain.add(key);
+    }
+
+    private void popKey() {
+        int size = this.keyChain.size() - 1;
+        this.keyChain.remove(size);
+        this.path.setLength(this.pathLengths[size]);
+    }
+
+    private void truncateKeys(int size) {
+        if (size > this.keyChain.size())
+            throw new IndexOutOfBoundsException("Line is indented deeper than its parent: " + size + " > " + this.keyChain.size());
+        if (size == this.keyChain.size())
+            return;
+
+        this.keyChain.subList(size, this.keyChain.size()).clear();
+        this.path.setLength(this.pathLengths[size]);
+    }
+
+    private void writeIndent(int spaces) throws IOException {
+        if (spaces > this.indent.length) {
+            this.indent = new char[Math.max(spaces, this.indent.length * 2)];
+            Arrays.fill(this.indent, ' ');
+        }
+        this.out.write(this.indent, 0, spaces);
+    }
+
+    private static boolean hasIndent(String line, int spaces) {
+        if (line.length() < spaces)
+            return false;
+        for (int i = 0; i < spaces; i++) {
+            if (line.charAt(i) != ' ')
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes out a last line that did not end in a line break. Does not close the underlying writer.
+     */
+    public void finish() throws IOException {
+        if (this.line.length() > 0)
+            this.endLine();
+        this.out.flush();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.finish();
+        this.out.close();
+    }
+
+}
@@ -25,16 +25,21 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 public abstract class ConfigConverter {
 
     private static final LinkedHashSet<ConfigConverter> converters = new LinkedHashSet<>();
+    private static final Map<Class<?>, ConfigConverter> convertersByType = new ConcurrentHashMap<>();
 
-    private static Yaml yaml;
+    // Yaml instances cannot be shared between threads, and configs are loaded and saved off the main thread.
+    private static final ThreadLocal<Yaml> yaml = ThreadLocal.withInitial(ConfigConverter::createYaml);
 
     static {
         try {
@@ -51,7 +56,9 @@ public abstract class ConfigConverter {
         } catch (Exception e) {
             throw new IllegalStateException(e);
         }
+    }
 
+    private static Yaml createYaml() {
         DumperOptions yamlOptions = new DumperOptions();
         yamlOptions.setIndent(2);
         yamlOptions.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
@@ -66,7 +73,7 @@ public abstract class ConfigConverter {
             }
         });
 
-        ConfigConverter.yaml = new Yaml(new CustomClassLoaderConstructor(Elevators.getInstance().getClass().getClassLoader(), new LoaderOptions()), yamlRepresenter, yamlOptions);
+        return new Yaml(new CustomClassLoaderConstructor(ConfigConverter.class.getClassLoader(), new LoaderOptions()), yamlRepresenter, yamlOptions);
     }
 
     public static void addConverter(Class<? extends ConfigConverter> clazz) throws Exception {
@@ -75,6 +82,7 @@ public abstract class ConfigConverter {
 
         try {
             converters.add(clazz.getConstructor().newInstance());
+            convertersByType.clear();
         } catch (NoSuchMethodException e) {
             throw new Exception("Converter does not implement an accessible Constructor", e);
         } catch (InvocationTargetException e) {
@@ -103,10 +111,18 @@ public abstract class ConfigConverter {
         return null;
     }
 
+    public static Map<?, ?> loadConfigData(String configText) throws Exception {
+        try {
+            return yaml.get().load(configText);
+        } catch (ClassCastException | YAMLException e) {
+            throw new Exception("Could not load YML", e);
+        }
+    }
+
     public static <T extends Config> ConfigRootNode<T> createNodeForConfig(T config, InputStream inputStream) throws Exception {
         Map<?, ?> yamlData;
         try (InputStreamReader fileReader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
-            yamlData = yaml.load(fileReader);
+            yamlData = yaml.get().load(fileReader);
         } catch (IOException | ClassCastException | YAMLException e) {
             throw new Exception("Could not load YML", e);
         }
@@ -118,87 +134,82 @@ public abstract class ConfigConverter {
     }
 
     public static boolean saveConfigToFile(ConfigRootNode<?> node, File file) {
-        try (OutputStreamWriter fileWriter = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8)) {
-
-            int depth = 0;
-            ArrayList<String> keyChain = new ArrayList<>();
-            String yamlString = yaml.dump(node.serializeToObject());
-            StringBuilder writeLines = new StringBuilder();
-            for (String line : yamlString.split("\n")) {
-                if (line.startsWith(new String(new char[depth]).replace("\0", " "))) {
-                    keyChain.add(line.split(":")[0].trim());
-                    depth = depth + 2;
-                } else {
-                    if (line.startsWith(new String(new char[depth - 2]).replace("\0", " ")))
-                        keyChain.remove(keyChain.size()-1);
-                    else {
-                        //Check how much spaces are infront of the line
-                        int spaces = 0;
-                        for (int i = 0; i < line.length(); i++) {
-                            if (line.charAt(i) == ' ')
-                                spaces++;
-                            else
-                                break;
-                        }
-
-                        depth = spaces;
-
-                        if (spaces == 0) {
-                            keyChain = new ArrayList<>();
-                            depth = 2;
-                        } else {
-                            ArrayList<String> temp = new ArrayList<>();
-                            int index = 0;
-                            for (int i = 0; i < spaces; i = i + 2, index++)
-                                temp.add(keyChain.get(index));
-
-                            keyChain = temp;
-
-                            depth = depth + 2;
-                        }
-                    }
-
-                    keyChain.add(line.split(":")[0].trim());
-                }
-
-                String search = join(keyChain);
-                for (String comment : node.getCommentsAtPath(search)) {
-                    writeLines.append(new String(new char[depth - 2]).replace("\0", " "));
-                    writeLines.append("# ");
-                    writeLines.append(comment);
-                    writeLines.append("\n");
-                }
-
-                writeLines.append(line);
-                writeLines.append("\n");
-            }
+        return writeConfigFile(file, writer -> writeConfig(node, writer));
+    }
 
-            fileWriter.write(writeLines.toString());
-            return true;
-        } catch (IOException e) {
+    /**
+     * @return the config as it would be written to file, comments included. Null if the config could not be serialized.
+     */
+    public static String serializeConfig(ConfigRootNode<?> node) {
+        return serializeConfig(node, node.serializeToObject(), "");
+    }
+
+    /**
+     * Writes already serialized config data, taking its comments from the node.
+     *
+     * @param commentPrefix the path of the data within the node, followed by a dot. Empty if the data is the whole node.
+     * @return the config as it would be written to file, comments included. Null if the config could not be serialized.
+     */
+    public static String serializeConfig(ConfigRootNode<?> node, Object data, String commentPrefix) {
+        try {
+            StringWriter writer = new StringWriter();
+            CommentedYamlWriter yamlWriter = new CommentedYamlWriter(node, writer, commentPrefix);
+            yaml.get().dump(data, yamlWriter);
+            yamlWriter.finish();
+            return writer.toString();
+        } catch (Exception e) {
             Elevators.getElevatorsLogger().log(Level.SEVERE, "Failed while saving config. Please create an issue ticket on my GitHub if one doesn't already exist: https://github.com/keehl254/Elevators/issues. Issue:\n" + ResourceHelper.cleanTrace(e));
-            return false;
+            return null;
         }
     }
 
-    private static String join(List<String> list) {
-        StringBuilder sb = new StringBuilder();
-        boolean first = true;
-        for (String item : list) {
-            if (first)
-                first = false;
-            else
-                sb.append(".");
-            sb.append(item);
+    private static void writeConfig(ConfigRootNode<?> node, Writer writer) throws IOException {
+        CommentedYamlWriter yamlWriter = new CommentedYamlWriter(node, writer);
+        yaml.get().dump(node.serializeToObject(), yamlWriter);
+        yamlWriter.finish();
+    }
+
+    public static boolean writeConfigFile(String configText, File file) {
+        return writeConfigFile(file, writer -> writer.write(configText));
+    }
+
+    /**
+     * Writes the config next to the file first, then moves it into place. A crash part way through a save can never
+     * leave a half written config behind.
+     */
+    private static boolean writeConfigFile(File file, ConfigWriteTask writeTask) {
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        try {
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(tempFile.toPath()), StandardCharsets.UTF_8))) {
+                writeTask.write(writer);
+            }
+            try {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (Exception e) {
+            tempFile.delete();
+            Elevators.getElevatorsLogger().log(Level.SEVERE, "Failed while saving config. Please create an issue ticket on my GitHub if one doesn't already exist: https://github.com/keehl254/Elevators/issues. Issue:\n" + ResourceHelper.cleanTrace(e));
+            return false;
         }
+    }
 
-        return sb.toString();
+    private interface ConfigWriteTask {
+        void write(Writer writer) throws IOException;
     }
 
     public static ConfigConverter getConverter(Class<?> type) {
+        ConfigConverter cachedConverter = convertersByType.get(type);
+        if (cachedConverter != null)
+            return cachedConverter;
+
         for (ConfigConverter converter : converters) {
-            if (converter.supports(type))
+            if (converter.supports(type)) {
+                convertersByType.put(type, converter);
                 return converter;
+            }
         }
         Elevators.getElevatorsLogger().warning("Failed to find config converter for type: " + type.getName());
         return null;
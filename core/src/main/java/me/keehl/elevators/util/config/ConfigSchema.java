@@ -0,0 +1,240 @@
+package me.keehl.elevators.util.config;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * Everything the config converters need to know about a class, worked out once the first time the class is loaded or
+ * saved. Configs are read and written many times over, and without this every pass would go back to reflection to
+ * look up the same fields, annotations and constructors.
+ */
+public class ConfigSchema {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+    private static final ClassValue<ConfigSchema> schemas = new ClassValue<ConfigSchema>() {
+        @Override
+        protected ConfigSchema computeValue(Class<?> type) {
+            return new ConfigSchema(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final MethodHandle constructor;
+
+    private volatile List<Property> properties;
+    private volatile Map<Field, Property> propertiesByField;
+
+    private ConfigSchema(Class<?> type) {
+        this.type = type;
+        this.constructor = findConstructor(type);
+    }
+
+    public static ConfigSchema of(Class<?> type) {
+        return schemas.get(type);
+    }
+
+    /**
+     * @return the property backed by the field. Fields that are not loaded from the config get a property of their own.
+     */
+    public static Property getProperty(Field field) {
+        ConfigSchema schema = of(field.getDeclaringClass());
+        schema.getProperties();
+
+        Property property = schema.propertiesByField.get(field);
+        return property != null ? property : new Property(field);
+    }
+
+    /**
+     * @return the fields that are loaded from the config, starting with the class's own and followed by those of its
+     * superclasses. Only looked up when first asked for, since schemas also exist for plain value types.
+     */
+    public List<Property> getProperties() {
+        List<Property> properties = this.properties;
+        if (properties != null)
+            return properties;
+
+        synchronized (this) {
+            if (this.properties != null)
+                return this.properties;
+
+            properties = new ArrayList<>();
+            Map<Field, Property> propertiesByField = new HashMap<>();
+            Class<?> current = this.type;
+            while (current != null) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (Modifier.isTransient(field.getModifiers()) || Modifier.isFinal(field.getModifiers()))
+                        continue;
+
+                    Property property = new Property(field);
+                    properties.add(property);
+                    propertiesByField.put(field, property);
+                }
+                current = current.getSuperclass();
+            }
+
+            this.propertiesByField = propertiesByField;
+            this.properties = Collections.unmodifiableList(properties);
+            return this.properties;
+        }
+    }
+
+    public boolean hasConstructor() {
+        return this.constructor != null;
+    }
+
+    /**
+     * Creates a new instance through the class's public no-args constructor.
+     */
+    public Object newInstance() throws Exception {
+        if (this.constructor == null)
+            throw new NoSuchMethodException(this.type.getName() + ".<init>()");
+
+        try {
+            return (Object) this.constructor.invokeExact();
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    private static MethodHandle findConstructor(Class<?> type) {
+        try {
+            Constructor<?> constructor = type.getConstructor();
+            return MethodHandles.publicLookup().unreflectConstructor(constructor).asType(CONSTRUCTOR_TYPE);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static Exception rethrow(Throwable e) {
+        if (e instanceof Error)
+            throw (Error) e;
+        if (e instanceof Exception)
+            return (Exception) e;
+        return new RuntimeException(e);
+    }
+
+    public static class Property {
+
+        private final Field field;
+        private final ConfigConverter.FieldData fieldData;
+
+        private final String path;
+        private final String[] comments;
+
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        private ConfigConverter converter;
+        private boolean converterResolved = false;
+
+        private Property(Field field) {
+            this.field = field;
+            this.field.setAccessible(true);
+            this.fieldData = new ConfigConverter.FieldData(field);
+
+            ConfigFieldName fieldName = field.getAnnotation(ConfigFieldName.class);
+            this.path = fieldName != null ? fieldName.value() : field.getName();
+
+            Comments comments = field.getAnnotation(Comments.class);
+            this.comments = comments != null ? comments.value() : new String[0];
+
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                this.getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+                this.setter = Modifier.isFinal(field.getModifiers()) ? null : lookup.unreflectSetter(field).asType(SETTER_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Could not access config field " + field, e);
+            }
+        }
+
+        public Field getField() {
+            return this.field;
+        }
+
+        public ConfigConverter.FieldData getFieldData() {
+            return this.fieldData;
+        }
+
+        public Class<?> getType() {
+            return this.field.getType();
+        }
+
+        public String getName() {
+            return this.field.getName();
+        }
+
+        /**
+         * @return the key the property is stored under in the config, which {@link ConfigFieldName} may override.
+         */
+        public String getPath() {
+            return this.path;
+        }
+
+        public String[] getComments() {
+            return this.comments;
+        }
+
+        /**
+         * @return the converter for the declared type of the field, or null if there is none.
+         */
+        public ConfigConverter getConverter() {
+            if (!this.converterResolved) {
+                this.converter = ConfigConverter.getConverter(this.field.getType());
+                this.converterResolved = true;
+            }
+            return this.converter;
+        }
+
+        public Object get(Object target) throws Exception {
+            try {
+                return (Object) this.getter.invokeExact(target);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        public void set(Object target, Object value) throws Exception {
+            if (this.setter == null)
+                throw new IllegalAccessException("Config field " + this.field + " is final");
+
+            try {
+                this.setter.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        /**
+         * @return a value to use when the field has none, or null if there is no sensible default.
+         */
+        public Object createDefaultValue(boolean allowLists) {
+            ConfigSchema typeSchema = ConfigSchema.of(this.field.getType());
+            if (typeSchema.hasConstructor()) {
+                try {
+                    return typeSchema.newInstance();
+                } catch (Exception ignored) {
+                }
+            }
+
+            if (Map.class.isAssignableFrom(this.field.getType()))
+                return new HashMap<>();
+            else if (Set.class.isAssignableFrom(this.field.getType()))
+                return new HashSet<>();
+            else if (allowLists && List.class.isAssignableFrom(this.field.getType()))
+                return new ArrayList<>();
+            else if (this.field.isEnumConstant())
+                return this.field.getType().getEnumConstants()[0];
+            return null;
+        }
+
+    }
+
+}
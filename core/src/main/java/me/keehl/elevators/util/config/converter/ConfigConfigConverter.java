@@ -3,8 +3,6 @@ package me.keehl.elevators.util.config.converter;
 import me.keehl.elevators.util.config.*;
 import me.keehl.elevators.util.config.nodes.ConfigNode;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
 import java.util.*;
 
 public class ConfigConfigConverter extends ConfigConverter {
@@ -17,7 +15,7 @@ public class ConfigConfigConverter extends ConfigConverter {
             if (fieldData.getFieldClass() == Config.class) {
                 object = new BlankConfig(rawData);
             } else {
-                object = fieldData.getFieldClass().getConstructor().newInstance();
+                object = ConfigSchema.of(fieldData.getFieldClass()).newInstance();
             }
         }
 
@@ -36,54 +34,26 @@ public class ConfigConfigConverter extends ConfigConverter {
     public void constructMapToConfig(ConfigNode<?> parentNode, ConfigNode<?> myNode, Object rawData, FieldData fieldData) throws Exception {
         Config configObj = (Config) myNode.getValue();
 
-        List<Field> fields = new ArrayList<>();
-        Class<?> current = fieldData.getFieldClass();
-        while (current != null) {
-            fields.addAll(Arrays.asList(current.getDeclaredFields()));
-            current = current.getSuperclass();
-        }
-        for (Field childField : fields) {
-            if (Modifier.isTransient(childField.getModifiers()) || Modifier.isFinal(childField.getModifiers()))
-                continue;
-
-            childField.setAccessible(true);
-            FieldData childFieldData = new FieldData(childField);
-
-            ConfigFieldName fieldName = childField.getAnnotation(ConfigFieldName.class);
-            String path = fieldName != null ? fieldName.value() : childField.getName();
+        for (ConfigSchema.Property property : ConfigSchema.of(fieldData.getFieldClass()).getProperties()) {
+            String path = property.getPath();
 
-            Object obj = childField.get(configObj);
+            Object obj = property.get(configObj);
             if (obj == null) {
-                try {
-                    obj = childField.getType().getConstructor().newInstance();
-                } catch (Exception e) {
-                    if (Map.class.isAssignableFrom(childField.getType()))
-                        obj = new HashMap<>();
-                    else if (Set.class.isAssignableFrom(childField.getType()))
-                        obj = new HashSet<>();
-                    else if (List.class.isAssignableFrom(childField.getType()))
-                        obj = new ArrayList<>();
-                    else if (childField.isEnumConstant())
-                        obj = childField.getType().getEnumConstants()[0];
-                    else {
-                        continue;
-                    }
-                }
+                obj = property.createDefaultValue(true);
+                if (obj == null)
+                    continue;
             }
             obj = parentNode.getRoot().getObjectAtPath(myNode.getChildPath(path), obj);
 
-            ConfigConverter converter = ConfigConverter.getConverter(childField.getType());
+            ConfigConverter converter = property.getConverter();
             ConfigNode<?> childNode;
             if (converter != null)
-                childNode = converter.deserializeNodeWithFieldAndObject(myNode, path, obj, childFieldData);
+                childNode = converter.deserializeNodeWithFieldAndObject(myNode, path, obj, property.getFieldData());
             else
-                childNode = ConfigConverter.createNodeWithData(myNode, path, obj, childField);
+                childNode = ConfigConverter.createNodeWithData(myNode, path, obj, property.getField());
 
-            if (childField.isAnnotationPresent(Comments.class)) {
-                Comments comments = childField.getAnnotation(Comments.class);
-                for (String comment : comments.value())
-                    childNode.addComment(comment);
-            }
+            for (String comment : property.getComments())
+                childNode.addComment(comment);
 
             myNode.getChildren().add(childNode);
 
@@ -143,6 +113,14 @@ public class ConfigConfigConverter extends ConfigConverter {
 
     @Override
     public Object serializeValueToObject(Object configObj) throws Exception {
+        return this.serializeValueToObject(configObj, Collections.emptySet());
+    }
+
+    /**
+     * Serializes the config, leaving out the top level keys given. Those are not serialized at all, so leaving out a
+     * large section costs nothing.
+     */
+    public Object serializeValueToObject(Object configObj, Set<String> excludedKeys) throws Exception {
 
         if (!(configObj instanceof Config))
             return new HashMap<>();
@@ -156,35 +134,14 @@ public class ConfigConfigConverter extends ConfigConverter {
 
         LinkedHashMap<String, Object> newMap = new LinkedHashMap<>();
 
-        List<Field> fields = new ArrayList<>();
-        Class<?> current = configObj.getClass();
-        while (current != null) {
-            fields.addAll(Arrays.asList(current.getDeclaredFields()));
-            current = current.getSuperclass();
-        }
-        for (Field childField : fields) {
-            if (Modifier.isTransient(childField.getModifiers()) || Modifier.isFinal(childField.getModifiers()))
+        for (ConfigSchema.Property property : ConfigSchema.of(configObj.getClass()).getProperties()) {
+            String path = property.getName();
+            if (excludedKeys.contains(path))
                 continue;
 
-            childField.setAccessible(true);
-
-            String path = childField.getName();
-
-            Object obj = childField.get(configObj);
-            if (obj == null) {
-                try {
-                    obj = childField.getType().getConstructor().newInstance();
-                } catch (Exception e) {
-                    if (Map.class.isAssignableFrom(childField.getType()))
-                        obj = new HashMap<>();
-                    else if (Set.class.isAssignableFrom(childField.getType()))
-                        obj = new HashSet<>();
-                    else if (childField.isEnumConstant())
-                        obj = childField.getType().getEnumConstants()[0];
-                    else
-                        continue;
-                }
-            }
+            Object obj = property.get(configObj);
+            if (obj == null)
+                obj = property.createDefaultValue(false);
             if (obj == null)
                 continue;
 
@@ -202,6 +159,8 @@ public class ConfigConfigConverter extends ConfigConverter {
         ExpandableConfig expandableConfig = (ExpandableConfig) configObj;
 
         for (String key : expandableConfig.data.keySet()) {
+            if (excludedKeys.contains(key))
+                continue;
             ConfigNode<?> childNode = expandableConfig.data.get(key);
             Object obj = childNode.getValue();
 
@@ -3,6 +3,7 @@ package me.keehl.elevators.util.config.nodes;
 import me.keehl.elevators.Elevators;
 import me.keehl.elevators.helpers.ResourceHelper;
 import me.keehl.elevators.util.config.ConfigConverter;
+import me.keehl.elevators.util.config.ConfigSchema;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
@@ -14,19 +15,20 @@ public class ClassicConfigNode<T> implements ConfigNode<T> {
     private final ConfigNode<?> parentNode;
 
     private final Field field;
+    private final ConfigSchema.Property property;
 
     private final ArrayList<ConfigNode<?>> children = new ArrayList<>();
 
     public ClassicConfigNode(ConfigNode<?> parentNode, Field field, T value) {
         this.parentNode = parentNode;
         this.field = field;
+        this.property = ConfigSchema.getProperty(field);
 
         if(value == null)
             return;
 
-        this.field.setAccessible(true);
         try {
-            this.field.set(parentNode.getValue(), value);
+            this.property.set(parentNode.getValue(), value);
         } catch (Exception e) {
             Elevators.getElevatorsLogger().warning("Config input at path '" + this.getPath() +"' must be of type '" + this.getFieldDisplay()+"'. Default value has been substituted.");
         }
@@ -41,9 +43,8 @@ public class ClassicConfigNode<T> implements ConfigNode<T> {
     @Override
     public T getValue() {
         try {
-            this.field.setAccessible(true);
-            return (T) this.field.get(this.parentNode.getValue());
-        } catch (IllegalAccessException e) {
+            return (T) this.property.get(this.parentNode.getValue());
+        } catch (Exception e) {
             Elevators.getElevatorsLogger().log(Level.SEVERE, "Failed to load config node data. Please create an issue ticket on my GitHub if one doesn't already exist: https://github.com/keehl254/Elevators/issues. Issue:\n" + ResourceHelper.cleanTrace(e));
             return null;
         }
@@ -75,7 +76,7 @@ public class ClassicConfigNode<T> implements ConfigNode<T> {
 
     @Override
     public ConfigConverter getConfigConverter() {
-        return ConfigConverter.getConverter(this.field.getType());
+        return this.property.getConverter();
     }
 
     public String getFieldDisplay() {
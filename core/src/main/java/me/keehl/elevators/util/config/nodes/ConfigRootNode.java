@@ -4,6 +4,7 @@ import me.keehl.elevators.Elevators;
 import me.keehl.elevators.helpers.ResourceHelper;
 import me.keehl.elevators.util.config.Config;
 import me.keehl.elevators.util.config.ConfigConverter;
+import me.keehl.elevators.util.config.converter.ConfigConfigConverter;
 
 import java.util.*;
 import java.util.logging.Level;
@@ -66,6 +67,24 @@ public class ConfigRootNode<T extends Config> implements ConfigNode<T> {
         return this.config;
     }
 
+    /**
+     * Serializes the config, leaving out the top level keys given.
+     */
+    public Object serializeToObject(Set<String> excludedKeys) {
+        ConfigConverter converter = ConfigConverter.getConverter(this.config.getClass());
+        if (converter instanceof ConfigConfigConverter) {
+            try {
+                return ((ConfigConfigConverter) converter).serializeValueToObject(this.config, excludedKeys);
+            } catch (Exception ignored) {
+            }
+        }
+
+        Object data = this.serializeToObject();
+        if (data instanceof Map)
+            ((Map<?, ?>) data).keySet().removeAll(excludedKeys);
+        return data;
+    }
+
     public Object serializeToObject() {
 
         ConfigConverter converter = ConfigConverter.getConverter(this.config.getClass());
@@ -118,9 +137,8 @@ public class ConfigRootNode<T extends Config> implements ConfigNode<T> {
     }
 
     public List<String> getCommentsAtPath(String path) {
-        if (this.comments.containsKey(path))
-            return this.comments.get(path);
-        return new ArrayList<>();
+        List<String> comments = this.comments.get(path);
+        return comments != null ? comments : Collections.emptyList();
     }
 
     public void clearCommentsAtPath(String path) {
@@ -1,3 +1,3 @@
 rootProject.name = "elevators"
 
-include("core", "hooks")
\ No newline at end of file
+include("core", "hooks", "tools")
\ No newline at end of file
@@ -0,0 +1,22 @@
+plugins {
+    java
+    application
+}
+
+java {
+    toolchain.languageVersion.set(JavaLanguageVersion.of(11))
+}
+
+tasks.compileJava {
+    options.release.set(11)
+}
+
+application {
+    mainClass.set("me.keehl.elevators.tools.ElevatorRegionTool")
+}
+
+tasks.jar {
+    manifest {
+        attributes["Main-Class"] = "me.keehl.elevators.tools.ElevatorRegionTool"
+    }
+}
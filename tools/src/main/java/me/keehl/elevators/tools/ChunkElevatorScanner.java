@@ -0,0 +1,298 @@
+package me.keehl.elevators.tools;
+
+import me.keehl.elevators.tools.nbt.NBTCompound;
+import me.keehl.elevators.tools.nbt.NBTList;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/*
+    Mirrors the block checks done by ElevatorsV1, ElevatorsV2 and ElevatorsV3 in the plugin, but against raw block
+    entity NBT. Like the plugin, the oldest matching format wins.
+
+    Legacy elevators are given the type the plugin would give them when converting them. V1 elevators always become
+    DEFAULT, and V2 elevators keep their type if it exists and become DEFAULT otherwise. Which types exist can only be
+    known from the plugin's config, so without a list of them, any legacy elevator whose conversion depends on it is
+    left as is for the plugin to convert.
+ */
+public class ChunkElevatorScanner {
+
+    public static final String TYPE_KEY = "elevators:elevator-type";
+    public static final String MIGRATED_KEY = "elevators:migrated";
+    public static final String DEFAULT_TYPE = "DEFAULT";
+
+    private static final String BUKKIT_VALUES_KEY = "PublicBukkitValues";
+    private static final String HIDDEN_KEY_PREFIX = "CoreEleKey:";
+    private static final String HIDDEN_KEY_MARKER = hideText(HIDDEN_KEY_PREFIX);
+
+    /**
+     * Scans every shulker box block entity in the chunk. If migrate is true, legacy elevators are rewritten into the
+     * V3 format in place.
+     * @param elevatorTypes the upper case keys of every configured elevator type, or null if they are not known.
+     * @return a manifest entry for each elevator found.
+     */
+    public static List<ManifestEntry> scanChunk(NBTCompound chunk, boolean migrate, Set<String> elevatorTypes) {
+        List<ManifestEntry> entries = new ArrayList<>();
+
+        NBTList blockEntities = chunk.getList("block_entities");
+        if (blockEntities == null && chunk.getCompound("Level") != null) // Pre 1.18 chunk format.
+            blockEntities = chunk.getCompound("Level").getList("TileEntities");
+        if (blockEntities == null)
+            return entries;
+
+        for (Object element : blockEntities) {
+            if (!(element instanceof NBTCompound))
+                continue;
+            NBTCompound blockEntity = (NBTCompound) element;
+
+            String id = blockEntity.getString("id");
+            if (id == null || !id.endsWith("shulker_box"))
+                continue;
+
+            // The type the elevator is converted to, or null if that depends on types we do not know of.
+            String convertedType = null;
+
+            String format = "V1";
+            String elevatorType = getV1ElevatorType(blockEntity, elevatorTypes);
+            if (elevatorType != null)
+                convertedType = elevatorType.equals(DEFAULT_TYPE) || elevatorTypes != null ? DEFAULT_TYPE : null;
+            else {
+                format = "V2";
+                elevatorType = getV2ElevatorType(blockEntity);
+                if (elevatorType != null)
+                    convertedType = getConvertedType(elevatorType, elevatorTypes);
+            }
+            if (elevatorType == null) {
+                format = "V3";
+                elevatorType = getBukkitValue(blockEntity, TYPE_KEY);
+            }
+            if (elevatorType == null)
+                continue;
+
+            ManifestEntry.Status status = ManifestEntry.Status.CURRENT;
+            if (!format.equals("V3")) {
+                status = ManifestEntry.Status.LEGACY;
+                if (convertedType != null)
+                    elevatorType = convertedType;
+                if (migrate && convertedType != null) {
+                    migrateBlockEntity(blockEntity, convertedType);
+                    status = ManifestEntry.Status.MIGRATED;
+                }
+            }
+
+            entries.add(new ManifestEntry(blockEntity.getInt("x"), blockEntity.getInt("y"), blockEntity.getInt("z"), elevatorType, format, status));
+        }
+
+        return entries;
+    }
+
+    // Same as ElevatorVersion.getClassFromBoxName in the plugin, which falls back to the default type.
+    private static String getConvertedType(String elevatorType, Set<String> elevatorTypes) {
+        String typeKey = elevatorType.toUpperCase(Locale.ROOT);
+        if (typeKey.equals(DEFAULT_TYPE) || (elevatorTypes != null && elevatorTypes.contains(typeKey)))
+            return typeKey;
+        return elevatorTypes == null ? null : DEFAULT_TYPE;
+    }
+
+    // Same result as convertToLaterVersion followed by ShulkerBoxHelper.clearContents in the plugin, including the
+    // marker that tells the plugin the box no longer needs to be checked for legacy data.
+    private static void migrateBlockEntity(NBTCompound blockEntity, String elevatorType) {
+        NBTCompound bukkitValues = blockEntity.getCompound(BUKKIT_VALUES_KEY);
+        if (bukkitValues == null) {
+            bukkitValues = new NBTCompound();
+            blockEntity.put(BUKKIT_VALUES_KEY, bukkitValues);
+        }
+        bukkitValues.put(TYPE_KEY, elevatorType);
+        bukkitValues.put(MIGRATED_KEY, (byte) 1);
+
+        blockEntity.remove("Items");
+
+        // Strip the hidden V2 key from the name, the same way ElevatorDataContainerService.updateItemStackFromV2 does for items.
+        String rawName = blockEntity.getString("CustomName");
+        String customName = getPlainText(rawName);
+        if (customName == null || !customName.contains(HIDDEN_KEY_MARKER))
+            return;
+
+        customName = customName.substring(0, customName.indexOf(HIDDEN_KEY_MARKER));
+        if (customName.isEmpty())
+            blockEntity.remove("CustomName");
+        else if (rawName.trim().startsWith("{") || rawName.trim().startsWith("[") || rawName.trim().startsWith("\""))
+            blockEntity.put("CustomName", "{\"text\":\"" + customName.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}");
+        else
+            blockEntity.put("CustomName", customName);
+    }
+
+    // Like the plugin, a stone whose type does not exist does not make the box a V1 elevator.
+    private static String getV1ElevatorType(NBTCompound blockEntity, Set<String> elevatorTypes) {
+        NBTList items = blockEntity.getList("Items");
+        if (items == null)
+            return null;
+
+        for (Object element : items) {
+            if (!(element instanceof NBTCompound))
+                continue;
+            NBTCompound item = (NBTCompound) element;
+
+            String id = item.getString("id");
+            if ("minecraft:command_block".equals(id) && "elevator".equalsIgnoreCase(getItemName(item)))
+                return DEFAULT_TYPE;
+
+            if ("minecraft:stone".equals(id)) {
+                String itemType = getItemBukkitValue(item, TYPE_KEY);
+                if (itemType != null && (elevatorTypes == null || elevatorTypes.contains(itemType.toUpperCase(Locale.ROOT))))
+                    return itemType;
+            }
+        }
+        return null;
+    }
+
+    private static String getV2ElevatorType(NBTCompound blockEntity) {
+        String customName = getPlainText(blockEntity.getString("CustomName"));
+        if (customName == null)
+            return null;
+
+        int sub = customName.indexOf(HIDDEN_KEY_MARKER);
+        if (sub == -1)
+            return null;
+
+        String hidden = revealText(customName.substring(sub).toLowerCase());
+        if (hidden == null || !hidden.contains(HIDDEN_KEY_PREFIX))
+            return null;
+
+        String[] parts = hidden.split(":");
+        if (parts.length == 1)
+            return null;
+        return parts[1];
+    }
+
+    private static String getBukkitValue(NBTCompound holder, String key) {
+        NBTCompound bukkitValues = holder.getCompound(BUKKIT_VALUES_KEY);
+        return bukkitValues == null ? null : bukkitValues.getString(key);
+    }
+
+    // Items store their data under "tag" before 1.20.5 and under "components" after.
+    private static String getItemBukkitValue(NBTCompound item, String key) {
+        NBTCompound tag = item.getCompound("tag");
+        if (tag != null)
+            return getBukkitValue(tag, key);
+
+        NBTCompound components = item.getCompound("components");
+        if (components == null || components.getCompound("minecraft:custom_data") == null)
+            return null;
+        return getBukkitValue(components.getCompound("minecraft:custom_data"), key);
+    }
+
+    private static String getItemName(NBTCompound item) {
+        NBTCompound tag = item.getCompound("tag");
+        if (tag != null) {
+            NBTCompound display = tag.getCompound("display");
+            return display == null ? null : getPlainText(display.getString("Name"));
+        }
+
+        NBTCompound components = item.getCompound("components");
+        return components == null ? null : getPlainText(components.getString("minecraft:custom_name"));
+    }
+
+    /**
+     * Names are stored as raw legacy strings before 1.13 and as JSON text components after. Formatting codes inside
+     * the text are kept, which is what the V2 hidden keys rely on.
+     */
+    static String getPlainText(String text) {
+        if (text == null)
+            return null;
+
+        text = text.trim();
+        if (text.startsWith("\""))
+            return readJsonString(text, 0, new int[1]);
+        if (!text.startsWith("{") && !text.startsWith("["))
+            return text;
+
+        StringBuilder output = new StringBuilder();
+        int[] end = new int[1];
+        int index = 0;
+        while ((index = text.indexOf("\"text\"", index)) != -1) {
+            index += 6;
+            while (index < text.length() && (Character.isWhitespace(text.charAt(index)) || text.charAt(index) == ':'))
+                index++;
+            if (index >= text.length() || text.charAt(index) != '"')
+                continue;
+
+            String value = readJsonString(text, index, end);
+            if (value == null)
+                break;
+            output.append(value);
+            index = end[0];
+        }
+        return output.toString();
+    }
+
+    private static String readJsonString(String text, int start, int[] end) {
+        StringBuilder output = new StringBuilder();
+        for (int i = start + 1; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                end[0] = i + 1;
+                return output.toString();
+            }
+            if (c != '\\') {
+                output.append(c);
+                continue;
+            }
+
+            if (++i >= text.length())
+                return null;
+            char escaped = text.charAt(i);
+            switch (escaped) {
+                case 'n': output.append('\n'); break;
+                case 't': output.append('\t'); break;
+                case 'r': output.append('\r'); break;
+                case 'b': output.append('\b'); break;
+                case 'f': output.append('\f'); break;
+                case 'u':
+                    if (i + 4 >= text.length())
+                        return null;
+                    try {
+                        output.append((char) Integer.parseInt(text.substring(i + 1, i + 5), 16));
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                    i += 4;
+                    break;
+                default: output.append(escaped);
+            }
+        }
+        return null;
+    }
+
+    // Same encoding as MessageHelper.hideText, where every hex digit of the UTF-8 bytes is written as a color code.
+    private static String hideText(String text) {
+        StringBuilder output = new StringBuilder();
+        for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            output.append('\u00a7').append(Character.forDigit((b >> 4) & 0xF, 16));
+            output.append('\u00a7').append(Character.forDigit(b & 0xF, 16));
+        }
+        return output.toString();
+    }
+
+    private static String revealText(String text) {
+        if (text.length() % 2 != 0)
+            text += " ";
+
+        byte[] bytes = new byte[text.length() / 4];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(text.charAt(i * 4 + 1), 16);
+            int low = Character.digit(text.charAt(i * 4 + 3), 16);
+            if (high == -1 || low == -1)
+                return null;
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+        if (text.length() % 4 != 0)
+            return null;
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
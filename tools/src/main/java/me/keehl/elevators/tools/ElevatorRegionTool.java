@@ -0,0 +1,229 @@
+package me.keehl.elevators.tools;
+
+import me.keehl.elevators.tools.nbt.NBTCompound;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+    Offline scanner for Elevators. Run against a stopped server or a copy of a world:
+
+        java -jar elevators-tools.jar <world folder> [--migrate] [--types <type,type,...>] [--threads <count>]
+
+    Every region file of the world is scanned in parallel for elevators. The results are written to a manifest next to
+    each dimension's region folder, which the plugin reads on startup for the matching world. With --migrate, V1 and V2
+    elevators are rewritten into the V3 format. If no legacy elevators remain in a dimension afterward, it is marked as
+    migrated so the plugin can skip legacy checks there.
+
+    --types takes the keys of every elevator type in the plugin's config. Legacy elevators of types that are not listed
+    become DEFAULT, just as the plugin would convert them. Without it, only legacy elevators that convert to DEFAULT
+    either way are migrated, and the rest are left for the plugin.
+ */
+public class ElevatorRegionTool {
+
+    public static final String MANIFEST_FILE_NAME = "elevators-manifest.csv";
+    public static final String COMPLETION_FILE_NAME = "elevators-migrated";
+
+    private static final String[] REGION_FOLDERS = {"region", "DIM-1" + File.separator + "region", "DIM1" + File.separator + "region"};
+
+    public static void main(String[] args) throws Exception {
+        File worldFolder = null;
+        boolean migrate = false;
+        Set<String> elevatorTypes = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--migrate":
+                    migrate = true;
+                    break;
+                case "--types":
+                    if (++i >= args.length) {
+                        printUsage();
+                        return;
+                    }
+                    elevatorTypes = new HashSet<>();
+                    for (String type : args[i].split(",")) {
+                        if (!type.trim().isEmpty())
+                            elevatorTypes.add(type.trim().toUpperCase(Locale.ROOT));
+                    }
+                    elevatorTypes.add(ChunkElevatorScanner.DEFAULT_TYPE);
+                    break;
+                case "--threads":
+                    if (++i >= args.length) {
+                        printUsage();
+                        return;
+                    }
+                    threads = Math.max(1, Integer.parseInt(args[i]));
+                    break;
+                default:
+                    worldFolder = new File(args[i]);
+            }
+        }
+
+        if (worldFolder == null || !worldFolder.isDirectory()) {
+            printUsage();
+            return;
+        }
+
+        List<DimensionScan> dimensions = new ArrayList<>();
+        int regionCount = 0;
+        for (String regionFolder : REGION_FOLDERS) {
+            File folder = new File(worldFolder, regionFolder);
+            File[] files = folder.listFiles((dir, name) -> name.startsWith("r.") && name.endsWith(".mca"));
+            if (files == null || files.length == 0)
+                continue;
+
+            dimensions.add(new DimensionScan(folder.getParentFile(), Arrays.asList(files)));
+            regionCount += files.length;
+        }
+
+        if (dimensions.isEmpty()) {
+            System.out.println("No region files found in " + worldFolder.getAbsolutePath());
+            return;
+        }
+
+        if (migrate)
+            System.out.println("Migrating elevators. Make sure the server using this world is stopped!");
+        System.out.println("Scanning " + regionCount + " region files with " + threads + " threads.");
+
+        long startTime = System.currentTimeMillis();
+        AtomicInteger scannedRegions = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final boolean finalMigrate = migrate;
+        final Set<String> finalElevatorTypes = elevatorTypes;
+        final int finalRegionCount = regionCount;
+        for (DimensionScan dimension : dimensions) {
+            for (File regionFile : dimension.regionFiles) {
+                executor.execute(() -> {
+                    try {
+                        dimension.entries.addAll(scanRegion(regionFile, finalMigrate, finalElevatorTypes, dimension.skippedChunks));
+                    } catch (Exception e) {
+                        dimension.failedRegions.incrementAndGet();
+                        System.err.println("Failed to scan " + regionFile.getPath() + ": " + e.getMessage());
+                    }
+
+                    int scanned = scannedRegions.incrementAndGet();
+                    if (scanned % 100 == 0)
+                        System.out.println("Scanned " + scanned + " / " + finalRegionCount + " region files.");
+                });
+            }
+        }
+        executor.shutdown();
+        //noinspection ResultOfMethodCallIgnored
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+        System.out.println("Finished scanning in " + (System.currentTimeMillis() - startTime) + "ms.");
+
+        boolean legacyLeftWithoutTypes = false;
+        for (DimensionScan dimension : dimensions) {
+            Map<ManifestEntry.Status, Integer> counts = new EnumMap<>(ManifestEntry.Status.class);
+            for (ManifestEntry entry : dimension.entries)
+                counts.merge(entry.getStatus(), 1, Integer::sum);
+
+            // Each dimension is its own world on the server, so each gets its own manifest and completion marker.
+            boolean complete = dimension.failedRegions.get() == 0 && dimension.skippedChunks.get() == 0;
+            writeManifest(new File(dimension.folder, MANIFEST_FILE_NAME), dimension.entries, complete);
+
+            System.out.println("Found " + dimension.entries.size() + " elevators in " + dimension.folder.getPath() + ". "
+                    + counts.getOrDefault(ManifestEntry.Status.CURRENT, 0) + " current, "
+                    + counts.getOrDefault(ManifestEntry.Status.LEGACY, 0) + " legacy, "
+                    + counts.getOrDefault(ManifestEntry.Status.MIGRATED, 0) + " migrated.");
+
+            if (!complete)
+                System.out.println(dimension.failedRegions.get() + " region files and " + dimension.skippedChunks.get() + " chunks could not be read.");
+
+            if (counts.getOrDefault(ManifestEntry.Status.LEGACY, 0) > 0) {
+                legacyLeftWithoutTypes |= finalMigrate && finalElevatorTypes == null;
+                continue;
+            }
+
+            if (complete) {
+                Files.write(new File(dimension.folder, COMPLETION_FILE_NAME).toPath(), "tools".getBytes(StandardCharsets.UTF_8));
+                System.out.println("No legacy elevators remain. " + dimension.folder.getPath() + " has been marked as migrated.");
+            }
+        }
+
+        if (legacyLeftWithoutTypes)
+            System.out.println("Some legacy elevators could only be migrated with the list of elevator types. Run again with --types, or leave them for the plugin to convert.");
+    }
+
+    private static List<ManifestEntry> scanRegion(File file, boolean migrate, Set<String> elevatorTypes, AtomicInteger skippedChunks) throws IOException {
+        List<ManifestEntry> entries = new ArrayList<>();
+        Map<Integer, NBTCompound> changedChunks = new HashMap<>();
+
+        RegionFile regionFile = new RegionFile(file);
+        try {
+            for (int index = 0; index < RegionFile.CHUNKS_PER_REGION; index++) {
+                if (!regionFile.hasChunk(index))
+                    continue;
+
+                NBTCompound chunk;
+                try {
+                    chunk = regionFile.readChunk(index);
+                } catch (IOException e) {
+                    chunk = null;
+                }
+                if (chunk == null) {
+                    skippedChunks.incrementAndGet();
+                    continue;
+                }
+
+                List<ManifestEntry> chunkEntries = ChunkElevatorScanner.scanChunk(chunk, migrate, elevatorTypes);
+                entries.addAll(chunkEntries);
+                if (chunkEntries.stream().anyMatch(entry -> entry.getStatus() == ManifestEntry.Status.MIGRATED))
+                    changedChunks.put(index, chunk);
+            }
+
+            if (!changedChunks.isEmpty()) {
+                int notRewritten = changedChunks.size() - regionFile.rewrite(changedChunks);
+                if (notRewritten > 0) {
+                    skippedChunks.addAndGet(notRewritten);
+                    System.err.println(notRewritten + " chunks in " + file.getPath() + " grew too large to be rewritten and were left as is.");
+                }
+            }
+        } finally {
+            regionFile.close();
+        }
+
+        return entries;
+    }
+
+    private static void writeManifest(File file, Collection<ManifestEntry> entries, boolean complete) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))) {
+            writer.println("# Elevators manifest. Generated " + new Date());
+            writer.println("# complete: " + complete);
+            writer.println("x,y,z,type,format,status");
+            for (ManifestEntry entry : entries)
+                writer.println(entry.toLine());
+        }
+    }
+
+    private static class DimensionScan {
+
+        private final File folder;
+        private final List<File> regionFiles;
+
+        private final Queue<ManifestEntry> entries = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger failedRegions = new AtomicInteger();
+        private final AtomicInteger skippedChunks = new AtomicInteger();
+
+        private DimensionScan(File folder, List<File> regionFiles) {
+            this.folder = folder;
+            this.regionFiles = regionFiles;
+        }
+
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage: java -jar elevators-tools.jar <world folder> [--migrate] [--types <type,type,...>] [--threads <count>]");
+    }
+
+}
@@ -0,0 +1,35 @@
+package me.keehl.elevators.tools;
+
+public class ManifestEntry {
+
+    public enum Status {
+        CURRENT, // Already stored in the V3 format.
+        LEGACY, // Stored in the V1 or V2 format and left as is. Also used for elevators whose type could not be resolved.
+        MIGRATED // Was stored in the V1 or V2 format and has been rewritten.
+    }
+
+    private final int x;
+    private final int y;
+    private final int z;
+    private final String elevatorType;
+    private final String format;
+    private final Status status;
+
+    public ManifestEntry(int x, int y, int z, String elevatorType, String format, Status status) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.elevatorType = elevatorType;
+        this.format = format;
+        this.status = status;
+    }
+
+    public Status getStatus() {
+        return this.status;
+    }
+
+    public String toLine() {
+        return this.x + "," + this.y + "," + this.z + "," + this.elevatorType + "," + this.format + "," + this.status.name();
+    }
+
+}
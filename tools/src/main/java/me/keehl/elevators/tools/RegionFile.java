@@ -0,0 +1,235 @@
+package me.keehl.elevators.tools;
+
+import me.keehl.elevators.tools.nbt.NBTCompound;
+import me.keehl.elevators.tools.nbt.NBTHelper;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/*
+    Reads chunks out of an Anvil (.mca) region file. The first 4KiB of the file hold a location entry for each of the
+    1024 chunks, and the next 4KiB hold their last-modified timestamps. The header is read once, and chunks are read
+    from the file as they are asked for. The file is not memory mapped, since a mapped file cannot be replaced on
+    Windows until the mapping is garbage collected.
+ */
+public class RegionFile implements Closeable {
+
+    public static final int CHUNKS_PER_REGION = 1024;
+
+    private static final int SECTOR_BYTES = 4096;
+    private static final int HEADER_BYTES = SECTOR_BYTES * 2;
+    private static final int MAX_SECTORS_PER_CHUNK = 255;
+
+    private static final byte COMPRESSION_GZIP = 1;
+    private static final byte COMPRESSION_ZLIB = 2;
+    private static final byte COMPRESSION_NONE = 3;
+    private static final byte COMPRESSION_EXTERNAL = (byte) 128;
+
+    private final File file;
+    private final int regionX;
+    private final int regionZ;
+
+    private final FileChannel channel;
+    private final long size;
+    private final ByteBuffer header;
+
+    public RegionFile(File file) throws IOException {
+        this.file = file;
+
+        String[] parts = file.getName().split("\\.");
+        if (parts.length != 4 || !parts[0].equals("r") || !parts[3].equals("mca"))
+            throw new IOException("\"" + file.getName() + "\" is not a region file.");
+        try {
+            this.regionX = Integer.parseInt(parts[1]);
+            this.regionZ = Integer.parseInt(parts[2]);
+        } catch (NumberFormatException e) {
+            throw new IOException("\"" + file.getName() + "\" is not a region file.");
+        }
+
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.size = this.channel.size();
+        this.header = ByteBuffer.allocate((int) Math.min(this.size, HEADER_BYTES));
+        this.readFully(this.header, 0);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = this.channel.read(buffer, position + buffer.position());
+            if (read < 0)
+                throw new EOFException("Unexpected end of " + this.file.getName());
+        }
+        buffer.flip();
+    }
+
+    public int getRegionX() {
+        return this.regionX;
+    }
+
+    public int getRegionZ() {
+        return this.regionZ;
+    }
+
+    public int getChunkX(int index) {
+        return (this.regionX << 5) + (index & 31);
+    }
+
+    public int getChunkZ(int index) {
+        return (this.regionZ << 5) + (index >> 5);
+    }
+
+    private int getLocation(int index) {
+        if (this.header.limit() < HEADER_BYTES)
+            return 0;
+        return this.header.getInt(index * 4);
+    }
+
+    public boolean hasChunk(int index) {
+        return this.getLocation(index) != 0;
+    }
+
+    /**
+     * @return the chunk's root compound, or null if the chunk is missing or uses a compression we cannot read.
+     */
+    public NBTCompound readChunk(int index) throws IOException {
+        int location = this.getLocation(index);
+        if (location == 0)
+            return null;
+
+        long position = (long) (location >>> 8) * SECTOR_BYTES;
+        if (position + 5 > this.size)
+            throw new IOException("Chunk " + index + " points outside of " + this.file.getName());
+
+        ByteBuffer chunkHeader = ByteBuffer.allocate(5);
+        this.readFully(chunkHeader, position);
+        int length = chunkHeader.getInt();
+        byte compression = chunkHeader.get();
+        if (length < 1 || position + 4 + length > this.size)
+            throw new IOException("Chunk " + index + " in " + this.file.getName() + " has an invalid length.");
+
+        byte[] data;
+        if ((compression & COMPRESSION_EXTERNAL) != 0) {
+            compression = (byte) (compression & ~COMPRESSION_EXTERNAL);
+            File externalFile = new File(this.file.getParentFile(), "c." + this.getChunkX(index) + "." + this.getChunkZ(index) + ".mcc");
+            data = Files.readAllBytes(externalFile.toPath());
+        } else {
+            data = new byte[length - 1];
+            this.readFully(ByteBuffer.wrap(data), position + 5);
+        }
+
+        InputStream input;
+        switch (compression) {
+            case COMPRESSION_GZIP:
+                input = new GZIPInputStream(new ByteArrayInputStream(data));
+                break;
+            case COMPRESSION_ZLIB:
+                input = new InflaterInputStream(new ByteArrayInputStream(data));
+                break;
+            case COMPRESSION_NONE:
+                input = new ByteArrayInputStream(data);
+                break;
+            default: // LZ4 and custom compression would need extra dependencies.
+                return null;
+        }
+
+        try (DataInputStream dataInput = new DataInputStream(new BufferedInputStream(input))) {
+            return NBTHelper.readRoot(dataInput);
+        }
+    }
+
+    /**
+     * Writes a copy of this region with the provided chunks replaced, then swaps it in for the original file. Chunks
+     * that were not changed are copied over byte for byte.
+     * @return the number of chunks that were actually replaced.
+     */
+    public int rewrite(Map<Integer, NBTCompound> changedChunks) throws IOException {
+        File tempFile = new File(this.file.getParentFile(), this.file.getName() + ".tmp");
+
+        int replaced = 0;
+        byte[] header = new byte[HEADER_BYTES];
+        if (this.header.limit() < HEADER_BYTES)
+            throw new IOException(this.file.getName() + " is missing its header. Refusing to rewrite it.");
+
+        ByteBuffer original = this.header.duplicate();
+        original.position(SECTOR_BYTES);
+        original.get(header, SECTOR_BYTES, SECTOR_BYTES); // Timestamps are kept as they are.
+
+        try (RandomAccessFile output = new RandomAccessFile(tempFile, "rw")) {
+            output.setLength(0);
+            output.write(header);
+
+            int sector = HEADER_BYTES / SECTOR_BYTES;
+            for (int index = 0; index < CHUNKS_PER_REGION; index++) {
+                byte[] sectors = null;
+
+                NBTCompound changed = changedChunks.get(index);
+                if (changed != null) {
+                    sectors = compressChunk(changed);
+                    if (sectors.length / SECTOR_BYTES > MAX_SECTORS_PER_CHUNK)
+                        sectors = null;
+                    else
+                        replaced++;
+                }
+
+                if (sectors == null)
+                    sectors = this.copyChunkSectors(index);
+                if (sectors == null)
+                    continue;
+
+                output.seek(index * 4L);
+                output.writeInt((sector << 8) | (sectors.length / SECTOR_BYTES));
+                output.seek((long) sector * SECTOR_BYTES);
+                output.write(sectors);
+                sector += sectors.length / SECTOR_BYTES;
+            }
+        }
+
+        this.close();
+        Files.move(tempFile.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return replaced;
+    }
+
+    private byte[] copyChunkSectors(int index) throws IOException {
+        int location = this.getLocation(index);
+        if (location == 0)
+            return null;
+
+        long position = (long) (location >>> 8) * SECTOR_BYTES;
+        int length = (location & 0xFF) * SECTOR_BYTES;
+        if (position + length > this.size)
+            throw new IOException("Chunk " + index + " points outside of " + this.file.getName() + ". Refusing to rewrite it.");
+
+        byte[] sectors = new byte[length];
+        this.readFully(ByteBuffer.wrap(sectors), position);
+        return sectors;
+    }
+
+    private static byte[] compressChunk(NBTCompound chunk) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(compressed)))) {
+            NBTHelper.writeRoot(output, chunk);
+        }
+
+        int length = compressed.size() + 1;
+        int sectorCount = (length + 4 + SECTOR_BYTES - 1) / SECTOR_BYTES;
+
+        ByteBuffer sectors = ByteBuffer.allocate(sectorCount * SECTOR_BYTES);
+        sectors.putInt(length);
+        sectors.put(COMPRESSION_ZLIB);
+        sectors.put(compressed.toByteArray());
+        return sectors.array();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+}
@@ -0,0 +1,33 @@
+package me.keehl.elevators.tools.nbt;
+
+import java.util.LinkedHashMap;
+
+/*
+    Values are stored as their closest Java type (Byte, Short, Integer, Long, Float, Double, byte[], String, NBTList,
+    NBTCompound, int[] and long[]) so that a compound can be written back out without losing any type information.
+ */
+public class NBTCompound extends LinkedHashMap<String, Object> {
+
+    private static final long serialVersionUID = 1L;
+
+    public NBTCompound getCompound(String key) {
+        Object value = this.get(key);
+        return value instanceof NBTCompound ? (NBTCompound) value : null;
+    }
+
+    public NBTList getList(String key) {
+        Object value = this.get(key);
+        return value instanceof NBTList ? (NBTList) value : null;
+    }
+
+    public String getString(String key) {
+        Object value = this.get(key);
+        return value instanceof String ? (String) value : null;
+    }
+
+    public int getInt(String key) {
+        Object value = this.get(key);
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+}
@@ -0,0 +1,155 @@
+package me.keehl.elevators.tools.nbt;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Map;
+
+public class NBTHelper {
+
+    public static final byte TAG_END = 0;
+    public static final byte TAG_BYTE = 1;
+    public static final byte TAG_SHORT = 2;
+    public static final byte TAG_INT = 3;
+    public static final byte TAG_LONG = 4;
+    public static final byte TAG_FLOAT = 5;
+    public static final byte TAG_DOUBLE = 6;
+    public static final byte TAG_BYTE_ARRAY = 7;
+    public static final byte TAG_STRING = 8;
+    public static final byte TAG_LIST = 9;
+    public static final byte TAG_COMPOUND = 10;
+    public static final byte TAG_INT_ARRAY = 11;
+    public static final byte TAG_LONG_ARRAY = 12;
+
+    public static NBTCompound readRoot(DataInput input) throws IOException {
+        byte type = input.readByte();
+        if (type != TAG_COMPOUND)
+            throw new IOException("Root tag is not a compound. Found type " + type);
+
+        input.readUTF(); // The root name is always empty for chunk data.
+        return (NBTCompound) readPayload(input, type);
+    }
+
+    public static void writeRoot(DataOutput output, NBTCompound compound) throws IOException {
+        output.writeByte(TAG_COMPOUND);
+        output.writeUTF("");
+        writePayload(output, compound);
+    }
+
+    private static Object readPayload(DataInput input, byte type) throws IOException {
+        switch (type) {
+            case TAG_BYTE:
+                return input.readByte();
+            case TAG_SHORT:
+                return input.readShort();
+            case TAG_INT:
+                return input.readInt();
+            case TAG_LONG:
+                return input.readLong();
+            case TAG_FLOAT:
+                return input.readFloat();
+            case TAG_DOUBLE:
+                return input.readDouble();
+            case TAG_BYTE_ARRAY: {
+                byte[] value = new byte[input.readInt()];
+                input.readFully(value);
+                return value;
+            }
+            case TAG_STRING:
+                return input.readUTF();
+            case TAG_LIST: {
+                NBTList list = new NBTList(input.readByte());
+                int length = input.readInt();
+                for (int i = 0; i < length; i++)
+                    list.add(readPayload(input, list.getElementType()));
+                return list;
+            }
+            case TAG_COMPOUND: {
+                NBTCompound compound = new NBTCompound();
+                byte childType;
+                while ((childType = input.readByte()) != TAG_END) {
+                    String name = input.readUTF();
+                    compound.put(name, readPayload(input, childType));
+                }
+                return compound;
+            }
+            case TAG_INT_ARRAY: {
+                int[] value = new int[input.readInt()];
+                for (int i = 0; i < value.length; i++)
+                    value[i] = input.readInt();
+                return value;
+            }
+            case TAG_LONG_ARRAY: {
+                long[] value = new long[input.readInt()];
+                for (int i = 0; i < value.length; i++)
+                    value[i] = input.readLong();
+                return value;
+            }
+            default:
+                throw new IOException("Unknown NBT tag type " + type);
+        }
+    }
+
+    private static void writePayload(DataOutput output, Object value) throws IOException {
+        if (value instanceof Byte)
+            output.writeByte((Byte) value);
+        else if (value instanceof Short)
+            output.writeShort((Short) value);
+        else if (value instanceof Integer)
+            output.writeInt((Integer) value);
+        else if (value instanceof Long)
+            output.writeLong((Long) value);
+        else if (value instanceof Float)
+            output.writeFloat((Float) value);
+        else if (value instanceof Double)
+            output.writeDouble((Double) value);
+        else if (value instanceof byte[]) {
+            byte[] array = (byte[]) value;
+            output.writeInt(array.length);
+            output.write(array);
+        } else if (value instanceof String)
+            output.writeUTF((String) value);
+        else if (value instanceof NBTList) {
+            NBTList list = (NBTList) value;
+            output.writeByte(list.getElementType());
+            output.writeInt(list.size());
+            for (Object element : list)
+                writePayload(output, element);
+        } else if (value instanceof NBTCompound) {
+            for (Map.Entry<String, Object> entry : ((NBTCompound) value).entrySet()) {
+                output.writeByte(getTagType(entry.getValue()));
+                output.writeUTF(entry.getKey());
+                writePayload(output, entry.getValue());
+            }
+            output.writeByte(TAG_END);
+        } else if (value instanceof int[]) {
+            int[] array = (int[]) value;
+            output.writeInt(array.length);
+            for (int element : array)
+                output.writeInt(element);
+        } else if (value instanceof long[]) {
+            long[] array = (long[]) value;
+            output.writeInt(array.length);
+            for (long element : array)
+                output.writeLong(element);
+        } else
+            throw new IOException("Cannot write " + (value == null ? "null" : value.getClass().getName()) + " as NBT");
+    }
+
+    private static byte getTagType(Object value) throws IOException {
+        if (value instanceof Byte) return TAG_BYTE;
+        if (value instanceof Short) return TAG_SHORT;
+        if (value instanceof Integer) return TAG_INT;
+        if (value instanceof Long) return TAG_LONG;
+        if (value instanceof Float) return TAG_FLOAT;
+        if (value instanceof Double) return TAG_DOUBLE;
+        if (value instanceof byte[]) return TAG_BYTE_ARRAY;
+        if (value instanceof String) return TAG_STRING;
+        if (value instanceof NBTList) return TAG_LIST;
+        if (value instanceof NBTCompound) return TAG_COMPOUND;
+        if (value instanceof int[]) return TAG_INT_ARRAY;
+        if (value instanceof long[]) return TAG_LONG_ARRAY;
+        throw new IOException("Cannot write " + (value == null ? "null" : value.getClass().getName()) + " as NBT");
+    }
+
+}
@@ -0,0 +1,19 @@
+package me.keehl.elevators.tools.nbt;
+
+import java.util.ArrayList;
+
+public class NBTList extends ArrayList<Object> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final byte elementType;
+
+    public NBTList(byte elementType) {
+        this.elementType = elementType;
+    }
+
+    public byte getElementType() {
+        return this.elementType;
+    }
+
+}